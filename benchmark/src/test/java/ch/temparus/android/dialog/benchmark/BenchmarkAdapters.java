@@ -0,0 +1,133 @@
+package ch.temparus.android.dialog.benchmark;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import ch.temparus.android.advancedrecyclerview.BaseAdapter;
+
+/**
+ * Content used by {@link DialogBenchmark} for the different holder types.
+ *
+ * @author Sandro Lutz
+ */
+final class BenchmarkAdapters {
+
+    private BenchmarkAdapters() {
+    }
+
+    static String getItem(int position) {
+        return "Item " + position;
+    }
+
+    /**
+     * Adapter for {@link ch.temparus.android.dialog.holder.ListViewHolder}
+     */
+    static class ListAdapter extends android.widget.BaseAdapter {
+
+        private final LayoutInflater mLayoutInflater;
+        private final int mItemCount;
+
+        ListAdapter(Context context, int itemCount) {
+            mLayoutInflater = LayoutInflater.from(context);
+            mItemCount = itemCount;
+        }
+
+        @Override
+        public int getCount() {
+            return mItemCount;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return BenchmarkAdapters.getItem(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            if (convertView == null) {
+                convertView = mLayoutInflater.inflate(android.R.layout.simple_list_item_1, parent, false);
+            }
+            ((TextView) convertView).setText(BenchmarkAdapters.getItem(position));
+            return convertView;
+        }
+    }
+
+    /**
+     * Adapter for {@link ch.temparus.android.dialog.holder.RecyclerViewHolder}
+     */
+    static class RecyclerAdapter extends BaseAdapter<RecyclerAdapter.ViewHolder> {
+
+        private final int mItemCount;
+
+        RecyclerAdapter(Context context, int itemCount) {
+            super(context);
+            mItemCount = itemCount;
+        }
+
+        @Override
+        public ViewHolder onCreateContentViewHolder(ViewGroup parent, int viewType) {
+            return new ViewHolder(LayoutInflater.from(parent.getContext()).inflate(android.R.layout.simple_list_item_1, parent, false));
+        }
+
+        @Override
+        public void onBindContentViewHolder(ViewHolder holder, int position, boolean selected) {
+            holder.textView.setText(BenchmarkAdapters.getItem(position));
+        }
+
+        @Override
+        public int getContentItemCount() {
+            return mItemCount;
+        }
+
+        @Override
+        public boolean isContentSelectable(int position) {
+            return true;
+        }
+
+        @Override
+        public Object getContentItem(int position) {
+            return BenchmarkAdapters.getItem(position);
+        }
+
+        static class ViewHolder extends BaseAdapter.ViewHolder {
+
+            private final TextView textView;
+
+            ViewHolder(View itemView) {
+                super(itemView);
+                textView = (TextView) itemView;
+            }
+        }
+    }
+
+    /**
+     * Custom layout for {@link ch.temparus.android.dialog.holder.ViewHolder}
+     */
+    static View createCustomLayout(Context context, int itemCount) {
+        ScrollView scrollView = new ScrollView(context);
+        LinearLayout linearLayout = new LinearLayout(context);
+        linearLayout.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < itemCount; i++) {
+            TextView textView = new TextView(context);
+            textView.setText(getItem(i));
+            linearLayout.addView(textView);
+        }
+        scrollView.addView(linearLayout);
+        return scrollView;
+    }
+
+    static View createTextView(Context context, String text) {
+        TextView textView = new TextView(context);
+        textView.setText(text);
+        return textView;
+    }
+}
@@ -0,0 +1,58 @@
+package ch.temparus.android.dialog.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects benchmark samples and writes them as JSON, so results can be compared between releases.
+ *
+ * @author Sandro Lutz
+ */
+final class BenchmarkResults {
+
+    private final List<String> mEntries = new ArrayList<>();
+
+    /**
+     * Add the samples of one operation and configuration
+     */
+    void add(String operation, String holder, boolean hasHeaderFooter, int itemCount, long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long sample : sorted) {
+            sum += sample;
+        }
+
+        mEntries.add(String.format(Locale.US,
+                "{\"operation\":\"%s\",\"holder\":\"%s\",\"headerFooter\":%b,\"items\":%d,\"iterations\":%d,"
+                        + "\"minNanos\":%d,\"medianNanos\":%d,\"meanNanos\":%d,\"maxNanos\":%d}",
+                operation, holder, hasHeaderFooter, itemCount, sorted.length,
+                sorted[0], sorted[sorted.length / 2], sum / sorted.length, sorted[sorted.length - 1]));
+    }
+
+    void write(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write("[\n");
+            for (int i = 0; i < mEntries.size(); i++) {
+                writer.write("  ");
+                writer.write(mEntries.get(i));
+                writer.write((i < mEntries.size() - 1) ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
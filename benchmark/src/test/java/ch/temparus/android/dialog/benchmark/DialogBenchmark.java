@@ -0,0 +1,304 @@
+package ch.temparus.android.dialog.benchmark;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import ch.temparus.android.advancedrecyclerview.LinearLayoutManager;
+import ch.temparus.android.dialog.Dialog;
+import ch.temparus.android.dialog.DialogPool;
+import ch.temparus.android.dialog.animation.TransitionEngine;
+import ch.temparus.android.dialog.holder.Holder;
+import ch.temparus.android.dialog.holder.ListViewHolder;
+import ch.temparus.android.dialog.holder.RecyclerViewHolder;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.io.File;
+
+/**
+ * Benchmark of dialog creation, showing, layout and dragging on the JVM, and of the layer policies
+ * while a sheet is dragged and settles.
+ *
+ * Run with: ./gradlew :benchmark:testDebug
+ *
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogBenchmark {
+
+    private static final String[] HOLDER_TYPES = {"ListViewHolder", "RecyclerViewHolder", "ViewHolder"};
+    private static final int[] ITEM_COUNTS = {10, 100, 1000, 10000};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int COLLAPSED_HEIGHT = 600;
+    private static final int DRAG_STEPS = 40;
+    private static final int DRAG_STEP_SIZE = 20;
+    private static final int LAYER_ITEM_COUNT = 50;
+    private static final int FRAME_DURATION = 16; // ms
+    private static final int MAX_SETTLE_FRAMES = 200;
+    // the benchmark module cannot use the test fixtures of the library module
+    private static final TransitionEngine IMMEDIATE_TRANSITION_ENGINE = new TransitionEngine() {
+        @Override
+        public void start(View target, int resId, Runnable endAction) {
+            endAction.run();
+        }
+
+        @Override
+        public void cancel(View target) {
+        }
+    };
+
+    private Activity mActivity;
+    private int mIterations;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        mIterations = Integer.parseInt(System.getProperty("benchmark.iterations", "10"));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        BenchmarkResults results = new BenchmarkResults();
+
+        for (String holderType : HOLDER_TYPES) {
+            for (boolean hasHeaderFooter : new boolean[]{false, true}) {
+                for (int itemCount : ITEM_COUNTS) {
+                    run(results, holderType, hasHeaderFooter, itemCount);
+                }
+            }
+        }
+
+        for (String holderType : new String[]{"ListViewHolder", "RecyclerViewHolder"}) {
+            for (Dialog.LayerPolicy layerPolicy : Dialog.LayerPolicy.values()) {
+                runLayerPolicy(results, holderType, layerPolicy);
+            }
+        }
+
+        results.write(new File(System.getProperty("benchmark.output", "build/benchmark/results.json")));
+    }
+
+    private void run(BenchmarkResults results, String holderType, boolean hasHeaderFooter, int itemCount) {
+        long[] create = new long[mIterations];
+        long[] show = new long[mIterations];
+        long[] layout = new long[mIterations];
+        long[] drag = new long[mIterations];
+
+        for (int i = -WARMUP_ITERATIONS; i < mIterations; i++) {
+            Dialog.Builder builder = createBuilder(holderType, hasHeaderFooter, itemCount);
+
+            long startTime = System.nanoTime();
+            Dialog dialog = builder.create();
+            long createTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            dialog.show();
+            long showTime = System.nanoTime() - startTime;
+
+            View dialogLayout = mActivity.findViewById(ch.temparus.android.dialog.R.id.dialog_layout);
+            measureAndLayout(dialogLayout);
+
+            // force a complete measure pass of the dialog
+            dialog.getHolderView().requestLayout();
+            startTime = System.nanoTime();
+            measureAndLayout(dialogLayout);
+            long layoutTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            performDrag(dialogLayout);
+            long dragTime = System.nanoTime() - startTime;
+
+            ((ViewGroup) dialogLayout.getParent()).removeView(dialogLayout);
+
+            if (i >= 0) {
+                create[i] = createTime;
+                show[i] = showTime;
+                layout[i] = layoutTime;
+                drag[i] = dragTime;
+            }
+        }
+
+        results.add("create", holderType, hasHeaderFooter, itemCount, create);
+        results.add("createPooled", holderType, hasHeaderFooter, itemCount, createPooled(holderType, hasHeaderFooter, itemCount));
+        results.add("show", holderType, hasHeaderFooter, itemCount, show);
+        results.add("measureLayout", holderType, hasHeaderFooter, itemCount, layout);
+        results.add("drag", holderType, hasHeaderFooter, itemCount, drag);
+    }
+
+    /**
+     * Create dialogs with a new holder of the same class on every iteration, which reuse the layout
+     * of the previous dialog returned to the pool by its dismissal.
+     */
+    private long[] createPooled(String holderType, boolean hasHeaderFooter, int itemCount) {
+        long[] create = new long[mIterations];
+        DialogPool pool = new DialogPool();
+
+        for (int i = -WARMUP_ITERATIONS; i < mIterations; i++) {
+            Dialog.Builder builder = createBuilder(holderType, hasHeaderFooter, itemCount)
+                    .setDialogPool(pool)
+                    .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE);
+
+            long startTime = System.nanoTime();
+            Dialog dialog = builder.create();
+            long createTime = System.nanoTime() - startTime;
+
+            dialog.show();
+            measureAndLayout(mActivity.findViewById(ch.temparus.android.dialog.R.id.dialog_layout));
+            dialog.dismiss();
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+            if (i >= 0) {
+                create[i] = createTime;
+            }
+        }
+
+        if (pool.getHitCount() != WARMUP_ITERATIONS + mIterations - 1) {
+            throw new IllegalStateException("Pooled layouts have not been reused: " + pool.getHitCount() + " hits");
+        }
+        return create;
+    }
+
+    /**
+     * Drag a sheet with a 50-row list up by hand and let it settle, drawing every frame.
+     * The operations are recorded per policy, e.g. "drag.MOTION" and "settle.MOTION".
+     *
+     * The JVM has no GPU, so the view is marked as hardware accelerated and a hardware layer is drawn through
+     * the software drawing cache. The samples show how much redrawing the layer saves, not device frame times.
+     */
+    private void runLayerPolicy(BenchmarkResults results, String holderType, Dialog.LayerPolicy layerPolicy) {
+        long[] drag = new long[mIterations];
+        long[] settle = new long[mIterations];
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        for (int i = -WARMUP_ITERATIONS; i < mIterations; i++) {
+            final Dialog.State[] state = new Dialog.State[1];
+            Dialog dialog = createBuilder(holderType, false, LAYER_ITEM_COUNT)
+                    .setLayerPolicy(layerPolicy)
+                    .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE)
+                    .create();
+            dialog.addOnStateChangeListener(new OnStateChangeListener() {
+                @Override
+                public void onStateChanged(Dialog dialog, Dialog.State newState) {
+                    state[0] = newState;
+                }
+            });
+            dialog.show();
+
+            View dialogLayout = mActivity.findViewById(ch.temparus.android.dialog.R.id.dialog_layout);
+            Object attachInfo = ReflectionHelpers.getField(dialogLayout, "mAttachInfo");
+            ReflectionHelpers.setField(attachInfo, "mHardwareAccelerated", true);
+            measureAndLayout(dialogLayout);
+            dialogLayout.draw(canvas);
+
+            final long downTime = SystemClock.uptimeMillis();
+            final float x = WIDTH / 2f;
+            float y = HEIGHT - COLLAPSED_HEIGHT / 2f;
+            long startTime = System.nanoTime();
+            dispatch(dialogLayout, downTime, MotionEvent.ACTION_DOWN, x, y);
+            for (int step = 0; step < DRAG_STEPS / 2; step++) {
+                y -= DRAG_STEP_SIZE;
+                advanceFrame();
+                dispatch(dialogLayout, downTime, MotionEvent.ACTION_MOVE, x, y);
+                dialogLayout.draw(canvas);
+            }
+            long dragTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            advanceFrame();
+            dispatch(dialogLayout, downTime, MotionEvent.ACTION_UP, x, y);
+            int frames = 0;
+            do {
+                advanceFrame();
+                dialogLayout.computeScroll();
+                dialogLayout.draw(canvas);
+            } while (state[0] == Dialog.State.SETTLING && ++frames < MAX_SETTLE_FRAMES);
+            long settleTime = System.nanoTime() - startTime;
+
+            if (frames == MAX_SETTLE_FRAMES) {
+                throw new IllegalStateException("Dialog did not settle within " + MAX_SETTLE_FRAMES + " frames");
+            }
+            ((ViewGroup) dialogLayout.getParent()).removeView(dialogLayout);
+
+            if (i >= 0) {
+                drag[i] = dragTime;
+                settle[i] = settleTime;
+            }
+        }
+
+        results.add("drag." + layerPolicy.name(), holderType, false, LAYER_ITEM_COUNT, drag);
+        results.add("settle." + layerPolicy.name(), holderType, false, LAYER_ITEM_COUNT, settle);
+    }
+
+    /**
+     * Advance the clock by one frame and run the tasks posted for it
+     */
+    private static void advanceFrame() {
+        ShadowLooper.idleMainLooper(FRAME_DURATION);
+    }
+
+    private Dialog.Builder createBuilder(String holderType, boolean hasHeaderFooter, int itemCount) {
+        Dialog.Builder builder = new Dialog.Builder(mActivity)
+                .setContentHolder(createHolder(holderType, itemCount))
+                .setGravity(Dialog.Gravity.BOTTOM)
+                .setCollapsedHeight(COLLAPSED_HEIGHT);
+        if (hasHeaderFooter) {
+            builder.setHeader(BenchmarkAdapters.createTextView(mActivity, "Header"));
+            builder.setFooter(BenchmarkAdapters.createTextView(mActivity, "Footer"));
+        }
+        return builder;
+    }
+
+    private Holder createHolder(String holderType, int itemCount) {
+        switch (holderType) {
+            case "ListViewHolder":
+                return new ListViewHolder(new BenchmarkAdapters.ListAdapter(mActivity, itemCount));
+            case "RecyclerViewHolder":
+                BenchmarkAdapters.RecyclerAdapter adapter = new BenchmarkAdapters.RecyclerAdapter(mActivity, itemCount);
+                return new RecyclerViewHolder(new LinearLayoutManager(mActivity, adapter), adapter);
+            default:
+                return new ViewHolder(BenchmarkAdapters.createCustomLayout(mActivity, itemCount));
+        }
+    }
+
+    private static void measureAndLayout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Drag the collapsed dialog up and down again
+     */
+    private static void performDrag(View dialogLayout) {
+        final long downTime = SystemClock.uptimeMillis();
+        final float x = WIDTH / 2f;
+        float y = HEIGHT - COLLAPSED_HEIGHT / 2f;
+
+        dispatch(dialogLayout, downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 0; i < DRAG_STEPS; i++) {
+            y += (i < DRAG_STEPS / 2) ? -DRAG_STEP_SIZE : DRAG_STEP_SIZE;
+            dispatch(dialogLayout, downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        dispatch(dialogLayout, downTime, MotionEvent.ACTION_UP, x, y);
+    }
+
+    private static void dispatch(View view, long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
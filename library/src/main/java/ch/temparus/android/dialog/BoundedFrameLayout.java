@@ -38,6 +38,14 @@ class BoundedFrameLayout extends FrameLayout {
         mBoundedHeight = boundedHeight;
     }
 
+    public int getBoundedWidth() {
+        return mBoundedWidth;
+    }
+
+    public int getBoundedHeight() {
+        return mBoundedHeight;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         int measuredWidth = MeasureSpec.getSize(widthMeasureSpec);
@@ -1,18 +1,25 @@
 package ch.temparus.android.dialog;
 
 import android.content.Context;
+import android.os.AsyncTask;
 import android.support.annotation.AnimRes;
 import android.support.annotation.ColorRes;
 import android.support.annotation.IdRes;
 import android.support.annotation.LayoutRes;
-import android.view.LayoutInflater;
 import android.view.View;
+import ch.temparus.android.dialog.animation.PropertyTransitionEngine;
+import ch.temparus.android.dialog.animation.TransitionEngine;
 import ch.temparus.android.dialog.holder.Holder;
+import ch.temparus.android.dialog.listeners.DialogMetrics;
 import ch.temparus.android.dialog.listeners.OnCancelListener;
 import ch.temparus.android.dialog.listeners.OnClickListener;
+import ch.temparus.android.dialog.listeners.OnCreateListener;
 import ch.temparus.android.dialog.listeners.OnDismissListener;
 import ch.temparus.android.dialog.listeners.OnItemClickListener;
+import ch.temparus.android.dialog.listeners.OnSlideListener;
+import ch.temparus.android.dialog.listeners.OnStateChangeListener;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -27,15 +34,35 @@ public class Dialog {
     // Determine whether the resources are set or not
     private static final int INVALID = -1;
     private DialogLayout mRootView;
+    private DialogPool mPool;
+    private Builder mBuilder; // copy of the builder, only kept when pooled to rebind a recycled layout
+    private DialogManager mManager; // set while the dialog is shown by a DialogManager
+    // kept by the dialog instead of the layout to survive the return of the layout to the pool
+    private final ArrayList<OnStateChangeListener> mOnStateChangeListeners = new ArrayList<>();
+    private final ArrayList<OnSlideListener> mOnSlideListeners = new ArrayList<>();
 
-    private Dialog(Builder builder) {
-        mRootView = new DialogLayout(this, builder);
+    /**
+     * @param content views inflated ahead or null to inflate them with the layout
+     */
+    private Dialog(Builder builder, DialogLayout.Content content) {
+        mPool = builder.dialogPool;
+        if (mPool != null) {
+            // setters called on the builder after create() must not change the dialog when it is shown again
+            mBuilder = new Builder(builder);
+            mRootView = mPool.obtain(this, builder, content);
+        } else {
+            mRootView = new DialogLayout(this, builder, content);
+        }
     }
 
     /**
      * It adds the dialog view into the decorView of activity
      */
     public void show() {
+        if (mPool != null && !mRootView.isBoundTo(this)) {
+            // layout has been returned to the pool after the last dismiss
+            mRootView = mPool.obtain(this, mBuilder, null);
+        }
         mRootView.show();
     }
 
@@ -46,14 +73,87 @@ public class Dialog {
      */
     @SuppressWarnings("unused")
     public boolean isShowing() {
-        return mRootView.isShowing();
+        return mRootView.isBoundTo(this) && mRootView.isShowing();
     }
 
     /**
      * It is called when to dismiss the dialog, either by calling dismiss() method or with cancellable
      */
     public void dismiss() {
-        mRootView.dismiss();
+        if (mRootView.isBoundTo(this)) {
+            mRootView.dismiss();
+        }
+    }
+
+    /**
+     * State changes are delivered to the {@link ch.temparus.android.dialog.listeners.OnStateChangeListener}
+     * at most once per frame with the final state of the frame.
+     *
+     * @return stable state ({@link State#COLLAPSED} or {@link State#EXPANDED}) the dialog was in before the
+     *         last delivered stable state or null if there is none
+     */
+    @SuppressWarnings("unused")
+    public State getPreviousStableState() {
+        return mRootView.isBoundTo(this) ? mRootView.getPreviousStableState() : null;
+    }
+
+    /**
+     * Add a listener which is notified about state changes of the dialog in addition to the content holder.
+     */
+    @SuppressWarnings("unused")
+    public void addOnStateChangeListener(OnStateChangeListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("OnStateChangeListener must not be null");
+        }
+        if (!mOnStateChangeListeners.contains(listener)) {
+            mOnStateChangeListeners.add(listener);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void removeOnStateChangeListener(OnStateChangeListener listener) {
+        mOnStateChangeListeners.remove(listener);
+    }
+
+    /**
+     * Add a listener which follows the position of the dialog, e.g. to fade or move views along with the dialog.
+     */
+    @SuppressWarnings("unused")
+    public void addOnSlideListener(OnSlideListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("OnSlideListener must not be null");
+        }
+        if (!mOnSlideListeners.contains(listener)) {
+            mOnSlideListeners.add(listener);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void removeOnSlideListener(OnSlideListener listener) {
+        mOnSlideListeners.remove(listener);
+    }
+
+    void setDialogManager(DialogManager manager) {
+        mManager = manager;
+    }
+
+    /**
+     * Called by {@link DialogLayout} after the dialog has been dismissed
+     */
+    void onDismissed() {
+        if (mManager != null) {
+            final DialogManager manager = mManager;
+            mManager = null;
+            manager.onDismissed(this);
+        }
+    }
+
+    ArrayList<OnStateChangeListener> getOnStateChangeListeners() {
+        return mOnStateChangeListeners;
+    }
+
+    ArrayList<OnSlideListener> getOnSlideListeners() {
+        return mOnSlideListeners;
     }
 
     @SuppressWarnings("unused")
@@ -83,6 +183,28 @@ public class Dialog {
         BOTTOM, CENTER
     }
 
+    /**
+     * Policy for rendering the dialog content into a hardware layer
+     */
+    public enum LayerPolicy {
+        /** Never use a hardware layer */
+        NONE,
+        /** Use a hardware layer during in and out animations */
+        TRANSITIONS,
+        /** Use a hardware layer during in and out animations, while dragging and while settling */
+        MOTION
+    }
+
+    /**
+     * Defines where the dialog layout is attached when the dialog is shown
+     */
+    public enum AttachMode {
+        /** Add the dialog to the content view of the activity, which lays out the content of the activity again */
+        CONTENT_VIEW,
+        /** Show the dialog in a window of its own above the activity, the content of the activity is not laid out again */
+        WINDOW
+    }
+
     /**
      * Use this builder to create a dialog
      */
@@ -92,8 +214,11 @@ public class Dialog {
 
         protected Context context;
         protected Holder holder;
+        protected DialogPool dialogPool;
         protected View footerView;
         protected View headerView;
+        protected int footerResourceId = INVALID;
+        protected int headerResourceId = INVALID;
         protected Gravity gravity = Gravity.BOTTOM;
         protected int maxWidth = INVALID;
         protected int maxHeight = INVALID;
@@ -102,6 +227,7 @@ public class Dialog {
         protected OnClickListener onClickListener;
         protected OnDismissListener onDismissListener;
         protected OnCancelListener onCancelListener;
+        protected DialogMetrics dialogMetrics;
 
         protected boolean isFooterAlwaysVisible = true;
         protected boolean isBackgroundDimEnabled = true;
@@ -109,6 +235,9 @@ public class Dialog {
         protected int backgroundColorResourceId = android.R.color.white;
         protected int inAnimation = INVALID;
         protected int outAnimation = INVALID;
+        protected TransitionEngine transitionEngine;
+        protected LayerPolicy layerPolicy = LayerPolicy.MOTION;
+        protected AttachMode attachMode = AttachMode.CONTENT_VIEW;
 
         /**
          * Initialize the builder with a valid context in order to inflate the dialog
@@ -121,12 +250,46 @@ public class Dialog {
             Arrays.fill(margin, INVALID);
         }
 
+        /**
+         * Copy the configuration of another builder
+         */
+        Builder(Builder source) {
+            System.arraycopy(source.margin, 0, margin, 0, margin.length);
+            System.arraycopy(source.padding, 0, padding, 0, padding.length);
+            context = source.context;
+            holder = source.holder;
+            dialogPool = source.dialogPool;
+            footerView = source.footerView;
+            headerView = source.headerView;
+            footerResourceId = source.footerResourceId;
+            headerResourceId = source.headerResourceId;
+            gravity = source.gravity;
+            maxWidth = source.maxWidth;
+            maxHeight = source.maxHeight;
+            collapsedHeight = source.collapsedHeight;
+            onItemClickListener = source.onItemClickListener;
+            onClickListener = source.onClickListener;
+            onDismissListener = source.onDismissListener;
+            onCancelListener = source.onCancelListener;
+            dialogMetrics = source.dialogMetrics;
+            isFooterAlwaysVisible = source.isFooterAlwaysVisible;
+            isBackgroundDimEnabled = source.isBackgroundDimEnabled;
+            isCancelable = source.isCancelable;
+            backgroundColorResourceId = source.backgroundColorResourceId;
+            inAnimation = source.inAnimation;
+            outAnimation = source.outAnimation;
+            transitionEngine = source.transitionEngine;
+            layerPolicy = source.layerPolicy;
+            attachMode = source.attachMode;
+        }
+
         /**
          * Set the footer view using the id of the layout resource
          */
         @SuppressWarnings("unused")
         public Builder setFooter(@LayoutRes int resId) {
-            this.footerView = LayoutInflater.from(context).inflate(resId, null);
+            this.footerResourceId = resId;
+            this.footerView = null;
             return this;
         }
 
@@ -136,6 +299,7 @@ public class Dialog {
         @SuppressWarnings("unused")
         public Builder setFooter(View view) {
             this.footerView = view;
+            this.footerResourceId = INVALID;
             return this;
         }
 
@@ -144,7 +308,8 @@ public class Dialog {
          */
         @SuppressWarnings("unused")
         public Builder setHeader(@LayoutRes int resId) {
-            this.headerView = LayoutInflater.from(context).inflate(resId, null);
+            this.headerResourceId = resId;
+            this.headerView = null;
             return this;
         }
 
@@ -154,6 +319,7 @@ public class Dialog {
         @SuppressWarnings("unused")
         public Builder setHeader(View view) {
             this.headerView = view;
+            this.headerResourceId = INVALID;
             return this;
         }
 
@@ -195,6 +361,18 @@ public class Dialog {
             return this;
         }
 
+        /**
+         * Recycle the dialog through the given {@link DialogPool}. Dismissed dialogs are kept in the pool
+         * and reused by the next dialog created with the same configuration.
+         *
+         * Note: A pool must not be shared between activities.
+         */
+        @SuppressWarnings("unused")
+        public Builder setDialogPool(DialogPool pool) {
+            this.dialogPool = pool;
+            return this;
+        }
+
         /**
          * Set background color for your dialog. If no resource is passed 'white' will be used
          */
@@ -261,6 +439,45 @@ public class Dialog {
             return this;
         }
 
+        /**
+         * Set the engine running the in and out animations. Defaults to {@link PropertyTransitionEngine}.
+         */
+        @SuppressWarnings("unused")
+        public Builder setTransitionEngine(TransitionEngine transitionEngine) {
+            this.transitionEngine = transitionEngine;
+            return this;
+        }
+
+        /**
+         * Define when the dialog content is rendered into a hardware layer. Defaults to {@link LayerPolicy#MOTION}.
+         *
+         * Note: A footer which is always visible moves within the content while dragging or settling.
+         *       In that case no hardware layer is used for dragging and settling.
+         */
+        @SuppressWarnings("unused")
+        public Builder setLayerPolicy(LayerPolicy layerPolicy) {
+            if (layerPolicy == null) {
+                throw new NullPointerException("LayerPolicy must not be null");
+            }
+            this.layerPolicy = layerPolicy;
+            return this;
+        }
+
+        /**
+         * Define where the dialog is attached when it is shown. Defaults to {@link AttachMode#CONTENT_VIEW}.
+         *
+         * Note: Dialogs attached as {@link AttachMode#WINDOW} are drawn above all views of the activity,
+         *       including the action bar.
+         */
+        @SuppressWarnings("unused")
+        public Builder setAttachMode(AttachMode attachMode) {
+            if (attachMode == null) {
+                throw new NullPointerException("AttachMode must not be null");
+            }
+            this.attachMode = attachMode;
+            return this;
+        }
+
         /**
          * Add margins to your dialog. They are set to 0 except when gravity is center. In that case basic margins
          * are applied
@@ -319,11 +536,60 @@ public class Dialog {
             return this;
         }
 
+        /**
+         * Set a listener collecting performance metrics of the dialog, e.g. for telemetry
+         */
+        @SuppressWarnings("unused")
+        public Builder setDialogMetrics(DialogMetrics metrics) {
+            this.dialogMetrics = metrics;
+            return this;
+        }
+
         /**
          * Create the dialog using this builder
          */
         public Dialog create() {
-            return new Dialog(this);
+            return new Dialog(this, null);
+        }
+
+        /**
+         * Create the dialog with the content, header and footer views inflated on a background thread.
+         * The dialog itself is created on the main thread and passed to the listener.
+         *
+         * Views which fail to be inflated on the background thread, e.g. because they require a Looper,
+         * are inflated on the main thread instead. Nothing is inflated ahead if a layout of the
+         * {@link DialogPool} can be reused.
+         *
+         * Note: This method has to be called on the main thread and the builder must not be modified
+         *       until the listener has been called.
+         *
+         * @param listener called on the main thread as soon as the dialog is ready
+         */
+        @SuppressWarnings("unused")
+        public void createAsync(final OnCreateListener listener) {
+            if (listener == null) {
+                throw new NullPointerException("OnCreateListener must not be null");
+            }
+            final boolean isPooled = dialogPool != null && dialogPool.contains(this);
+            new AsyncTask<Void, Void, DialogLayout.Content>() {
+                @Override
+                protected DialogLayout.Content doInBackground(Void... params) {
+                    if (isPooled) {
+                        return null;
+                    }
+                    try {
+                        return new DialogLayout.Content(Builder.this);
+                    } catch (RuntimeException e) {
+                        // inflated on the main thread by onPostExecute()
+                        return null;
+                    }
+                }
+
+                @Override
+                protected void onPostExecute(DialogLayout.Content content) {
+                    listener.onCreate(new Dialog(Builder.this, content));
+                }
+            }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
         }
     }
 }
@@ -4,49 +4,81 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.VelocityTrackerCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewConfigurationCompat;
 import android.view.*;
-import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
 import android.widget.AdapterView;
 import android.widget.FrameLayout;
-import android.widget.LinearLayout;
 import android.widget.Scroller;
+import ch.temparus.android.dialog.animation.PropertyTransitionEngine;
+import ch.temparus.android.dialog.animation.TransitionEngine;
 import ch.temparus.android.dialog.holder.Holder;
 import ch.temparus.android.dialog.holder.HolderAdapter;
 import ch.temparus.android.dialog.holder.ListViewHolder;
+import ch.temparus.android.dialog.holder.RecyclableHolder;
 import ch.temparus.android.dialog.holder.ViewHolder;
 import ch.temparus.android.dialog.listeners.*;
 
+import java.util.concurrent.TimeUnit;
+
 /**
+ * Full-screen layout which positions the content container of the dialog depending on its {@link Dialog.Gravity}.
  * DialogLayout is used internally by {@link Dialog}
  *
  * @author Sandro Lutz
  */
 @SuppressLint("ViewConstructor")
-class DialogLayout extends LinearLayout {
+class DialogLayout extends ViewGroup {
 
     // Determine whether the resources are set or not
     private static final int INVALID = -1;
     private static final int DIM_COLOR = 0x60000000;
+    private static final float COLLAPSED_DIM_FRACTION = 0.5f; // dim of a collapsed dialog relative to an expanded one
+    private static final int DIM_FADE_DURATION = 200; // ms
+    private static final int MAX_SETTLE_DURATION = 300; // ms
+    private static final Interpolator SETTLE_INTERPOLATOR = new Interpolator() {
+        @Override
+        public float getInterpolation(float t) {
+            // decelerates like a fling
+            t -= 1.0f;
+            return t * t * t * t * t + 1.0f;
+        }
+    };
+    private static final TransitionEngine DEFAULT_TRANSITION_ENGINE = new PropertyTransitionEngine();
 
     private final ViewGroup mDecorView; // activity root view
+    private Dialog.AttachMode mAttachMode;
+    private WindowManager.LayoutParams mWindowLayoutParams; // created on first show in a window of its own
     private final int[] mMargin = new int[4];
     private final int[] mPadding = new int[4];
-    private View mTopView;
-    private View mBottomView;
     private View mHeaderView;
     private View mFooterView;
-    private ViewGroup mHeaderContainer;
     private ViewGroup mFooterContainer;
     private BoundedFrameLayout mContentContainer;
+    private View mSheetView; // content view of the holder, the only opaque area of the dialog
+    private boolean mIsBackgroundDimEnabled;
+    private final Paint mDimPaint = new Paint();
+    private float mDimFade; // 0 while hidden, 1 while shown
+    private float mDimFadeStart;
+    private float mDimFadeTarget;
+    private long mDimFadeStartTime = INVALID;
     private int mCollapsedHeight;
     private int mBackgroundColorResourceId;
     private int mInAnimation;
     private int mOutAnimation;
+    private TransitionEngine mTransitionEngine;
+    private Dialog.LayerPolicy mLayerPolicy;
+    private boolean mIsTransitionRunning;
     private Dialog.Gravity mGravity;
     private Holder mHolder; // Content
     private boolean mIsFooterAlwaysVisible;
@@ -57,58 +89,116 @@ class DialogLayout extends LinearLayout {
     private boolean mIsDismissing;
     private float mMaxScroll = INVALID;
     private Dialog mDialog;
+    private DialogPool mPool;
+    private DialogPool.Key mPoolKey;
     private OnItemClickListener mOnItemClickListener;
     private ch.temparus.android.dialog.listeners.OnClickListener mOnClickListener;
     private OnDismissListener mOnDismissListener;
     private OnCancelListener mOnCancelListener;
-    private OnStateChangeListener mOnStateChangeListener;
+    private final StateDispatcher mStateDispatcher = new StateDispatcher(this); // delivers state changes and slide offsets once per frame
     private int mTouchSlop;
     private int mActivePointerId = INVALID;
     private float mLastMotionY; // position of the last motion event
     private float mInitialMotionY; // position on action down motion event
-    private float mLastMotionDeltaY;
+    private VelocityTracker mVelocityTracker; // obtained once and reused for every gesture
+    private int mMinimumFlingVelocity;
+    private int mMaximumFlingVelocity;
+    private float mSettleVelocity;
     private Scroller mScroller; // calculates smooth scroll animation
+    private final OnKeyListener mKeyListener = new OnKeyListener() {
+        @Override
+        public boolean onKey(View v, int keyCode, KeyEvent event) {
+            if (isShowing()) {
+                switch (event.getAction()) {
+                    case KeyEvent.ACTION_UP:
+                        if (keyCode == KeyEvent.KEYCODE_BACK) {
+                            if (mIsCancelable) {
+                                onBackPressed();
+                            }
+                            return true;
+                        }
+                        break;
+                }
+            }
+            return false;
+        }
+    };
+    private final OnHolderListener mHolderListener = new OnHolderListener() {
+        @Override
+        public void onItemClick(Object item, View view, int position) {
+            if (mOnItemClickListener == null) {
+                return;
+            }
+            mOnItemClickListener.onItemClick(mDialog, item, view, position);
+            if (mMetrics != null && mLastTouchUpTime != INVALID) {
+                mMetrics.onItemClick(mDialog, TimeUnit.MILLISECONDS.toNanos(SystemClock.uptimeMillis() - mLastTouchUpTime));
+                mLastTouchUpTime = INVALID;
+            }
+        }
+    };
+    private final OnClickListener mClickListener = new OnClickListener() { // shared by all views of the dialog
+        @Override
+        public void onClick(View view) {
+            if (mOnClickListener == null) {
+                return;
+            }
+            mOnClickListener.onClick(mDialog, view);
+        }
+    };
+    private int mLayoutGeneration; // incremented whenever a layout is requested within the dialog
+    private int mCachedLayoutGeneration = INVALID;
+    private int mCachedWidthMeasureSpec;
+    private int mCachedHeightMeasureSpec;
+    private int mMeasurePassCount;
+    private DialogMetrics mMetrics;
+    private FrameMonitor mFrameMonitor;
+    private long mCreateNanos = INVALID;
+    private long mShowTime = INVALID;
+    private long mLastTouchUpTime = INVALID;
+    private boolean mIsDragReleased; // the current gesture has been handed over to the content
+    private final OnAttachStateChangeListener mHostAttachStateListener = new OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View view) {
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View view) {
+            // the activity is destroyed while the dialog is shown, the window of the dialog must not outlive it
+            removeFromWindowManager();
+        }
+    };
 
     DialogLayout(Dialog dialog, Dialog.Builder builder) {
+        this(dialog, builder, null);
+    }
+
+    /**
+     * @param content views inflated ahead or null to inflate them with the layout
+     */
+    DialogLayout(Dialog dialog, Dialog.Builder builder, Content content) {
         super(builder.context);
 
+        final long createStartTime = System.nanoTime();
+
         final Resources res = getResources();
 
-        LinearLayout.LayoutParams helperLayoutParams = new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0, 1f);
-        FrameLayout.LayoutParams contentLayoutParams = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        ViewGroup.LayoutParams contentLayoutParams = new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
 
         mDialog = dialog;
+        mPool = builder.dialogPool;
+        mPoolKey = (mPool != null) ? new DialogPool.Key(builder) : null;
 
-        mHolder = (builder.holder == null) ? new ListViewHolder() : builder.holder;
-        mHeaderView = builder.headerView;
-        mFooterView = builder.footerView;
-
-        mIsFooterAlwaysVisible = builder.isFooterAlwaysVisible;
-        mIsCancelable = builder.isCancelable;
         mGravity = builder.gravity;
-        mCollapsedHeight = (mGravity != Dialog.Gravity.CENTER) ? builder.collapsedHeight : INVALID;
-        mBackgroundColorResourceId = builder.backgroundColorResourceId;
-
-        mInAnimation = (builder.inAnimation == INVALID) ? getInAnimation(mGravity) : builder.inAnimation;
-        mOutAnimation = (builder.outAnimation == INVALID) ? getOutAnimation(mGravity) : builder.outAnimation;
 
         System.arraycopy(builder.padding, 0, mPadding, 0, mPadding.length);
 
-        mOnItemClickListener = builder.onItemClickListener;
-        mOnClickListener = builder.onClickListener;
-        mOnDismissListener = builder.onDismissListener;
-        mOnCancelListener = builder.onCancelListener;
-        mOnStateChangeListener = mHolder.getOnStateChangeListener();
-
         int minimumMargin = res.getDimensionPixelSize(R.dimen.dialog_min_margin);
         for (int i = 0; i < mMargin.length; i++) {
             mMargin[i] = getMargin(mGravity, builder.margin[i], minimumMargin);
         }
 
         mDecorView = (ViewGroup) ((Activity) getContext()).getWindow().getDecorView().findViewById(android.R.id.content);
-        mTopView = new View(builder.context);
         mContentContainer = new BoundedFrameLayout(builder.context);
-        mBottomView = new View(builder.context);
 
         // set maximum dialog width depending on gravity
         switch (mGravity) {
@@ -120,46 +210,24 @@ class DialogLayout extends LinearLayout {
                 break;
         }
         mContentContainer.setBoundedHeight(builder.maxHeight); // if INVALID, it will be ignored
+        mContentContainer.setOnTouchListener(new OnTouchListener() {
+            @Override
+            public boolean onTouch(View view, MotionEvent motionEvent) {
+                return true;
+            }
+        });
 
-        initContentView();
-        initPosition();
+        bindContent(builder, content);
         initCancelable();
 
         setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
-        setGravity(Gravity.CENTER_HORIZONTAL);
-        setOrientation(VERTICAL);
         setId(R.id.dialog_layout);
 
-        mTopView.setId(R.id.dialog_top_view);
-        mBottomView.setId(R.id.dialog_bottom_view);
         mContentContainer.setId(R.id.dialog_content_container);
 
-        addView(mTopView, helperLayoutParams);
         addView(mContentContainer, contentLayoutParams);
-        addView(mBottomView, helperLayoutParams);
 
-        if (builder.isBackgroundDimEnabled) {
-            setBackgroundColor(DIM_COLOR);
-        }
-
-        mHolder.setOnKeyListener(new OnKeyListener() {
-            @Override
-            public boolean onKey(View v, int keyCode, KeyEvent event) {
-                if (isShowing()) {
-                    switch (event.getAction()) {
-                        case KeyEvent.ACTION_UP:
-                            if (keyCode == KeyEvent.KEYCODE_BACK) {
-                                if (mIsCancelable) {
-                                    onBackPressed();
-                                }
-                                return true;
-                            }
-                            break;
-                    }
-                }
-                return false;
-            }
-        });
+        bind(builder);
 
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
             this.addOnAttachStateChangeListener(new OnAttachStateChangeListener() {
@@ -180,7 +248,105 @@ class DialogLayout extends LinearLayout {
         final ViewConfiguration configuration = ViewConfiguration.get(getContext());
         mTouchSlop = ViewConfigurationCompat.getScaledPagingTouchSlop(configuration);
 
-        mScroller = new Scroller(builder.context);
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+
+        mScroller = new Scroller(builder.context, SETTLE_INTERPOLATOR);
+        mDimPaint.setColor(DIM_COLOR);
+
+        mCreateNanos = System.nanoTime() - createStartTime;
+    }
+
+    /**
+     * Bind a recycled layout to a new dialog instance. Called by {@link DialogPool}
+     * @param content views inflated ahead or null to inflate them on demand
+     */
+    void rebind(Dialog dialog, Dialog.Builder builder, Content content) {
+        final long rebindStartTime = System.nanoTime();
+
+        mDialog = dialog;
+        // reset the state of the previous usage before the new holder gets notified
+        mStateDispatcher.reset();
+        bindContent(builder, content);
+        bind(builder);
+
+        // reset scroll state of the previous usage
+        abortAnimation();
+        scrollTo(0, 0);
+        mFooterContainer.setTranslationY(0);
+        mMaxScroll = INVALID;
+        mState = Dialog.State.SETTLING;
+        mSettlingState = mState;
+        mActivePointerId = INVALID;
+        updateContentLayer();
+        requestLayout(); // max scroll has to be computed again
+
+        mCreateNanos = System.nanoTime() - rebindStartTime;
+    }
+
+    /**
+     * Detach the layout from its dialog before it gets returned to the {@link DialogPool}
+     */
+    void unbind() {
+        stopFrameMonitor();
+        mDialog = null;
+        mOnItemClickListener = null;
+        mOnClickListener = null;
+        mOnDismissListener = null;
+        mOnCancelListener = null;
+        mMetrics = null;
+    }
+
+    boolean isBoundTo(Dialog dialog) {
+        return mDialog == dialog;
+    }
+
+    DialogPool.Key getPoolKey() {
+        return mPoolKey;
+    }
+
+    /**
+     * Apply the builder options which do not affect the view hierarchy
+     */
+    private void bind(Dialog.Builder builder) {
+        mIsFooterAlwaysVisible = builder.isFooterAlwaysVisible;
+        mIsCancelable = builder.isCancelable;
+        mCollapsedHeight = (mGravity != Dialog.Gravity.CENTER) ? builder.collapsedHeight : INVALID;
+
+        mInAnimation = (builder.inAnimation == INVALID) ? getInAnimation(mGravity) : builder.inAnimation;
+        mOutAnimation = (builder.outAnimation == INVALID) ? getOutAnimation(mGravity) : builder.outAnimation;
+
+        mTransitionEngine = (builder.transitionEngine != null) ? builder.transitionEngine : DEFAULT_TRANSITION_ENGINE;
+        mLayerPolicy = builder.layerPolicy;
+        mAttachMode = builder.attachMode;
+
+        mOnItemClickListener = builder.onItemClickListener;
+        mOnClickListener = builder.onClickListener;
+        mOnDismissListener = builder.onDismissListener;
+        mOnCancelListener = builder.onCancelListener;
+        mMetrics = builder.dialogMetrics;
+
+        // the dim is drawn around the sheet in dispatchDraw() instead of as background behind it
+        mIsBackgroundDimEnabled = builder.isBackgroundDimEnabled;
+        mDimFade = 0f;
+        mDimFadeTarget = 0f;
+        mDimFadeStartTime = INVALID;
+        if (mFooterContainer != null) {
+            // a pinned footer overlaps the content and needs a background of its own
+            mFooterContainer.setBackgroundColor(mIsFooterAlwaysVisible ? getResources().getColor(mBackgroundColorResourceId) : Color.TRANSPARENT);
+        }
+        invalidate();
+    }
+
+    private static Holder createHolder(Dialog.Builder builder) {
+        return (builder.holder == null) ? new ListViewHolder() : builder.holder;
+    }
+
+    static View inflateView(Context context, View view, int resId) {
+        if (view == null && resId != INVALID) {
+            return LayoutInflater.from(context).inflate(resId, null);
+        }
+        return view;
     }
 
     /**
@@ -190,15 +356,21 @@ class DialogLayout extends LinearLayout {
         if (isShowing()) {
             return;
         }
-        mDecorView.addView(this);
+        if (mMetrics != null) {
+            if (mCreateNanos != INVALID) {
+                mMetrics.onCreated(mDialog, mCreateNanos);
+                mCreateNanos = INVALID;
+            }
+            mShowTime = System.nanoTime();
+        }
+        attach();
         if (mCollapsedHeight != INVALID) {
             collapseInternal(true);
         } else {
             expandInternal(true);
         }
-        Context context = getContext();
-        Animation inAnim = AnimationUtils.loadAnimation(context, this.mInAnimation);
-        mContentContainer.startAnimation(inAnim);
+        startTransition(mInAnimation, null);
+        startDimFade(1f);
 
         mContentContainer.requestFocus();
     }
@@ -222,37 +394,78 @@ class DialogLayout extends LinearLayout {
         if (mIsDismissing) {
             return;
         }
-        Context context = mDecorView.getContext();
-        Animation outAnim = AnimationUtils.loadAnimation(context, this.mOutAnimation);
-        outAnim.setAnimationListener(new Animation.AnimationListener() {
+        stopFrameMonitor();
+        startTransition(mOutAnimation, new Runnable() {
             @Override
-            public void onAnimationStart(Animation animation) {
-
-            }
-
-            @Override
-            public void onAnimationEnd(Animation animation) {
+            public void run() {
                 mDecorView.post(new Runnable() {
                     @Override
                     public void run() {
-                        mDecorView.removeView(DialogLayout.this);
+                        final Dialog dialog = mDialog;
+                        final OnDismissListener onDismissListener = mOnDismissListener;
+
+                        mStateDispatcher.flush();
+                        detach();
                         mIsDismissing = false;
-                        if (mOnDismissListener != null) {
-                            mOnDismissListener.onDismiss(mDialog);
+                        if (mPool != null) {
+                            unbind();
+                            mPool.release(DialogLayout.this);
+                        }
+                        if (onDismissListener != null) {
+                            onDismissListener.onDismiss(dialog);
+                        }
+                        if (dialog != null) {
+                            dialog.onDismissed();
                         }
                     }
                 });
             }
-
-            @Override
-            public void onAnimationRepeat(Animation animation) {
-
-            }
         });
-        mContentContainer.startAnimation(outAnim);
+        startDimFade(0f);
         mIsDismissing = true;
     }
 
+    /**
+     * Add the dialog to the activity depending on the {@link Dialog.AttachMode}
+     */
+    private void attach() {
+        if (mAttachMode == Dialog.AttachMode.WINDOW) {
+            // a window of its own does not request a layout of the content of the activity
+            final Window window = ((Activity) getContext()).getWindow();
+            if (mWindowLayoutParams == null) {
+                mWindowLayoutParams = new WindowManager.LayoutParams(
+                        WindowManager.LayoutParams.MATCH_PARENT, WindowManager.LayoutParams.MATCH_PARENT,
+                        WindowManager.LayoutParams.TYPE_APPLICATION, 0, PixelFormat.TRANSLUCENT);
+                mWindowLayoutParams.setTitle(getClass().getSimpleName());
+                mWindowLayoutParams.softInputMode = window.getAttributes().softInputMode;
+                mWindowLayoutParams.flags |= window.getAttributes().flags & WindowManager.LayoutParams.FLAG_HARDWARE_ACCELERATED;
+            }
+            window.getWindowManager().addView(this, mWindowLayoutParams);
+            mDecorView.addOnAttachStateChangeListener(mHostAttachStateListener);
+        } else {
+            mDecorView.addView(this);
+        }
+    }
+
+    private void detach() {
+        stopFrameMonitor();
+        if (mAttachMode == Dialog.AttachMode.WINDOW) {
+            mDecorView.removeOnAttachStateChangeListener(mHostAttachStateListener);
+            removeFromWindowManager();
+        } else {
+            mDecorView.removeView(this);
+        }
+    }
+
+    /**
+     * Remove the window of the dialog, unless it has already been removed together with the activity
+     */
+    private void removeFromWindowManager() {
+        if (isShowing()) {
+            ((Activity) getContext()).getWindow().getWindowManager().removeViewImmediate(this);
+        }
+    }
+
     public View getHeaderView() {
         return mHeaderView;
     }
@@ -270,6 +483,7 @@ class DialogLayout extends LinearLayout {
     }
 
     public void expand() {
+        mSettleVelocity = 0;
         setState(Dialog.State.SETTLING);
         expandInternal(false);
     }
@@ -283,10 +497,82 @@ class DialogLayout extends LinearLayout {
     }
 
     public void collapse() {
+        mSettleVelocity = 0;
         setState(Dialog.State.SETTLING);
         collapseInternal(false);
     }
 
+    /**
+     * Settle the dialog after a drag. A fling decides by its direction, otherwise the nearest state is chosen.
+     */
+    private void settle() {
+        float velocity = 0;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+            velocity = (mActivePointerId != INVALID)
+                    ? VelocityTrackerCompat.getYVelocity(mVelocityTracker, mActivePointerId)
+                    : mVelocityTracker.getYVelocity();
+        }
+
+        final boolean isFling = Math.abs(velocity) > mMinimumFlingVelocity;
+        final boolean shouldExpand;
+        if (isFling) {
+            // moving the pointer up expands the dialog
+            shouldExpand = velocity < 0;
+        } else {
+            shouldExpand = getScrollY() > getMaxScroll() / 2;
+        }
+
+        mSettleVelocity = isFling ? velocity : 0;
+        setState(Dialog.State.SETTLING);
+        if (shouldExpand) {
+            expandInternal(false);
+        } else {
+            collapseInternal(false);
+        }
+    }
+
+    private void trackVelocity(MotionEvent motionEvent) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        if ((motionEvent.getAction() & MotionEventCompat.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(motionEvent);
+    }
+
+    /**
+     * Compute the settle duration depending on the remaining distance and the release velocity.
+     */
+    private int computeSettleDuration(int deltaY) {
+        final int distance = Math.abs(deltaY);
+        final float velocity = Math.abs(mSettleVelocity);
+        int duration;
+        if (velocity > 0) {
+            // keep up with the fling, the interpolator starts with about 5 times the average speed
+            duration = 4 * Math.round(1000 * distance / velocity);
+        } else {
+            final int range = Math.max(1, mContentContainer.getHeight());
+            duration = (int) ((1f + (float) distance / range) * MAX_SETTLE_DURATION / 2);
+        }
+        return Math.min(duration, MAX_SETTLE_DURATION);
+    }
+
+    /**
+     * @return 0 if the dialog is collapsed, 1 if it is expanded (or cannot be collapsed) and in between while it is moving
+     */
+    float getSlideOffset() {
+        if (mMaxScroll == INVALID || mMaxScroll == 0) {
+            return 1f;
+        }
+        return 1f - getScrollY() / mMaxScroll;
+    }
+
+    private float getMaxScroll() {
+        return (mContentContainer.getHeight() > mCollapsedHeight) ? -1 * (mContentContainer.getHeight() - mCollapsedHeight) : 0;
+    }
+
     private void collapseInternal(boolean immediately) {
         mSettlingState = Dialog.State.COLLAPSED;
 
@@ -306,12 +592,57 @@ class DialogLayout extends LinearLayout {
             }
             setState(mSettlingState);
         } else {
-            int duration = 300;
-            mScroller.startScroll(getScrollX(), getScrollY(), 0, deltaY, duration);
+            mScroller.startScroll(getScrollX(), getScrollY(), 0, deltaY, computeSettleDuration(deltaY));
         }
         ViewCompat.postInvalidateOnAnimation(this);
     }
 
+    /**
+     * Run an in / out transition on the content container
+     */
+    private void startTransition(int resId, final Runnable endAction) {
+        mIsTransitionRunning = true;
+        updateContentLayer();
+        invalidate(); // the scrim is not cut out while the content container moves
+        mTransitionEngine.start(mContentContainer, resId, new Runnable() {
+            @Override
+            public void run() {
+                mIsTransitionRunning = false;
+                updateContentLayer();
+                invalidate();
+                if (endAction != null) {
+                    endAction.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Render the content container into a hardware layer while it only moves as a whole,
+     * depending on the {@link Dialog.LayerPolicy}
+     */
+    private void updateContentLayer() {
+        boolean isLayerEnabled = false;
+        if (mContentContainer.isHardwareAccelerated()) {
+            switch (mLayerPolicy) {
+                case MOTION:
+                    // a pinned footer moves within the content container and would invalidate the layer on every frame
+                    boolean isFooterPinned = mIsFooterAlwaysVisible && mFooterView != null;
+                    boolean isMoving = mState == Dialog.State.DRAGGING || mState == Dialog.State.SETTLING;
+                    isLayerEnabled = mIsTransitionRunning || (isMoving && !isFooterPinned);
+                    break;
+                case TRANSITIONS:
+                    isLayerEnabled = mIsTransitionRunning;
+                    break;
+            }
+        }
+
+        int layerType = isLayerEnabled ? View.LAYER_TYPE_HARDWARE : View.LAYER_TYPE_NONE;
+        if (mContentContainer.getLayerType() != layerType) {
+            mContentContainer.setLayerType(layerType, null);
+        }
+    }
+
     private void abortAnimation() {
         mScroller.forceFinished(true);
     }
@@ -343,14 +674,10 @@ class DialogLayout extends LinearLayout {
      * touching the black overlay
      */
     private void initCancelable() {
-        if (!mIsCancelable) {
-            return;
-        }
-
         setOnTouchListener(new OnTouchListener() {
             @Override
             public boolean onTouch(View v, MotionEvent event) {
-                if (event.getAction() == MotionEvent.ACTION_DOWN && mState != Dialog.State.DRAGGING && v != mContentContainer) {
+                if (mIsCancelable && event.getAction() == MotionEvent.ACTION_DOWN && mState != Dialog.State.DRAGGING && v != mContentContainer) {
                     if (mOnCancelListener != null) {
                         mOnCancelListener.onCancel(mDialog);
                     }
@@ -363,75 +690,70 @@ class DialogLayout extends LinearLayout {
     }
 
     /**
-     * It is called when the dialog has to be positioned
+     * Add the content view of the holder with header and footer to the content container.
+     * A holder implementing {@link RecyclableHolder} takes over the content view of a pooled layout,
+     * which has been created by a holder of the same class (see {@link DialogPool.Key}).
      */
-    private void initPosition() {
-        switch (mGravity) {
-            case BOTTOM:
-                mBottomView.setVisibility(View.GONE);
-                mTopView.setVisibility(View.VISIBLE);
-                break;
-            default:
-                mBottomView.setVisibility(View.VISIBLE);
-                mTopView.setVisibility(View.VISIBLE);
-                break;
+    private void bindContent(Dialog.Builder builder, Content content) {
+        if (content != null) {
+            mHolder = content.holder;
+            mHeaderView = content.headerView;
+            mFooterView = content.footerView;
+        } else {
+            mHolder = createHolder(builder);
+            mHeaderView = inflateView(builder.context, builder.headerView, builder.headerResourceId);
+            mFooterView = inflateView(builder.context, builder.footerView, builder.footerResourceId);
         }
-    }
-
-    private void initContentView() {
-        int convertedGravity = getGravity();
-        View contentView = createView(LayoutInflater.from(getContext()));
-        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, convertedGravity
-        );
-        params.setMargins(mMargin[0], mMargin[1], mMargin[2], mMargin[3]);
-        contentView.setLayoutParams(params);
-        getHolderView().setPadding(mPadding[0], mPadding[1], mPadding[2], mPadding[3]);
-
-        mContentContainer.addView(contentView);
-        mHeaderContainer = (ViewGroup) mContentContainer.findViewById(R.id.header_container);
-        mFooterContainer = (ViewGroup) mContentContainer.findViewById(R.id.footer_container);
-    }
+        mBackgroundColorResourceId = builder.backgroundColorResourceId;
 
-    /**
-     * it is called when the content view is created
-     *
-     * @param inflater used to inflate the content of the dialog
-     * @return content view
-     */
-    private View createView(LayoutInflater inflater) {
+        mStateDispatcher.setListener(mHolder.getOnStateChangeListener());
+        mHolder.setOnKeyListener(mKeyListener);
         mHolder.setBackgroundColor(mBackgroundColorResourceId);
-        View view = mHolder.getView(inflater, this);
 
-        if (mHolder instanceof ViewHolder) {
-            assignClickListenerRecursively(view);
+        View contentView;
+        if (mSheetView != null && mHolder instanceof RecyclableHolder) {
+            contentView = mSheetView;
+            ((ViewGroup) contentView.findViewById(R.id.header_container)).removeAllViews();
+            ((ViewGroup) contentView.findViewById(R.id.footer_container)).removeAllViews();
+            ((RecyclableHolder) mHolder).bindView(contentView);
+        } else {
+            if (mSheetView != null) {
+                mContentContainer.removeView(mSheetView);
+            }
+            contentView = (content != null) ? content.holderView : mHolder.getView(LayoutInflater.from(getContext()), this);
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, getGravity()
+            );
+            params.setMargins(mMargin[0], mMargin[1], mMargin[2], mMargin[3]);
+            contentView.setLayoutParams(params);
+            mContentContainer.addView(contentView);
+            mSheetView = contentView;
+            mFooterContainer = (ViewGroup) contentView.findViewById(R.id.footer_container);
         }
+        getHolderView().setPadding(mPadding[0], mPadding[1], mPadding[2], mPadding[3]);
 
-        mContentContainer.setOnTouchListener(new OnTouchListener() {
-            @Override
-            public boolean onTouch(View view, MotionEvent motionEvent) {
-                return true;
-            }
-        });
+        if (mHolder instanceof ViewHolder) {
+            assignClickListenerRecursively(contentView);
+        }
 
+        // a view of the builder may still be added to the sheet of another pooled layout
+        removeFromParent(mHeaderView);
         assignClickListenerRecursively(mHeaderView);
         mHolder.addHeader(mHeaderView);
 
+        removeFromParent(mFooterView);
         assignClickListenerRecursively(mFooterView);
         mHolder.addFooter(mFooterView);
 
         if (mHolder instanceof HolderAdapter) {
-            ((HolderAdapter) mHolder).setOnItemClickListener(new OnHolderListener() {
-                @Override
-                public void onItemClick(Object item, View view, int position) {
-                    if (mOnItemClickListener == null) {
-                        return;
-                    }
-                    mOnItemClickListener.onItemClick(mDialog, item, view, position);
-                }
-            });
+            ((HolderAdapter) mHolder).setOnItemClickListener(mHolderListener);
+        }
+    }
+
+    private static void removeFromParent(View view) {
+        if (view != null && view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
         }
-        return view;
     }
 
     /**
@@ -456,7 +778,7 @@ class DialogLayout extends LinearLayout {
     /**
      * It is used to set a click listener on view that have a valid id associated
      */
-    private void setClickListener(final View view) {
+    private void setClickListener(View view) {
         if (view.getId() == INVALID) {
             return;
         }
@@ -465,15 +787,7 @@ class DialogLayout extends LinearLayout {
             return;
         }
 
-        view.setOnClickListener(new OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (mOnClickListener == null) {
-                    return;
-                }
-                mOnClickListener.onClick(mDialog, view);
-            }
-        });
+        view.setOnClickListener(mClickListener);
     }
 
     private int getMargin(Dialog.Gravity gravity, int margin, int minimumMargin) {
@@ -504,9 +818,51 @@ class DialogLayout extends LinearLayout {
             mSettlingState = mState;
         }
         mState = state;
+        updateContentLayer();
+        updateFrameMonitor();
+
+        mStateDispatcher.dispatch(mDialog, mState);
+    }
+
+    /**
+     * @return current state of the dialog, which may not have been dispatched to the listeners yet
+     */
+    Dialog.State getState() {
+        return mState;
+    }
+
+    /**
+     * @return stable state (collapsed or expanded) the dialog was in before its current or last stable state
+     */
+    Dialog.State getPreviousStableState() {
+        return mStateDispatcher.getPreviousStableState();
+    }
 
-        if (mOnStateChangeListener != null) {
-            mOnStateChangeListener.onStateChanged(mDialog, mState);
+    /**
+     * Count the frames of a motion (dragging and settling) and report them when the dialog has come to rest
+     */
+    private void updateFrameMonitor() {
+        if (mState != Dialog.State.DRAGGING && mState != Dialog.State.SETTLING) {
+            stopFrameMonitor();
+        } else if (mMetrics != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameMonitor == null) {
+                mFrameMonitor = new FrameMonitor(getContext());
+            }
+            mFrameMonitor.start();
+        }
+    }
+
+    /**
+     * Stop counting frames and report the frames of the motion so far, if the dialog still has metrics.
+     * Called whenever the dialog comes to rest or gets detached, the monitor would post itself forever otherwise.
+     */
+    private void stopFrameMonitor() {
+        if (mFrameMonitor == null || !mFrameMonitor.isRunning()) {
+            return;
+        }
+        mFrameMonitor.stop();
+        if (mMetrics != null) {
+            mMetrics.onMotionFrames(mDialog, mFrameMonitor.getFrameCount(), mFrameMonitor.getJankyFrameCount(), mFrameMonitor.getDroppedFrameCount());
         }
     }
 
@@ -520,6 +876,14 @@ class DialogLayout extends LinearLayout {
         dismiss();
     }
 
+    @Override
+    public boolean dispatchTouchEvent(@android.support.annotation.NonNull MotionEvent motionEvent) {
+        if ((motionEvent.getAction() & MotionEventCompat.ACTION_MASK) == MotionEvent.ACTION_UP) {
+            mLastTouchUpTime = motionEvent.getEventTime();
+        }
+        return super.dispatchTouchEvent(motionEvent);
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent motionEvent) {
         if (mCollapsedHeight == INVALID || mHolder.isInterceptTouchEventDisallowed()) {
@@ -528,16 +892,17 @@ class DialogLayout extends LinearLayout {
 
         final int action = motionEvent.getAction() & MotionEventCompat.ACTION_MASK;
 
+        if (action == MotionEvent.ACTION_DOWN) {
+            mIsDragReleased = false;
+        } else if (mIsDragReleased) {
+            // the content keeps the rest of the gesture
+            return false;
+        }
+
         if (action == MotionEvent.ACTION_CANCEL || action == MotionEvent.ACTION_UP) {
             if (mState == Dialog.State.DRAGGING) {
-                setState(Dialog.State.SETTLING);
-
-                if (mLastMotionDeltaY < 0) {
-                    expand();
-                } else {
-                    collapse();
-                }
-
+                trackVelocity(motionEvent);
+                settle();
                 mActivePointerId = INVALID;
             }
             return false;
@@ -548,6 +913,8 @@ class DialogLayout extends LinearLayout {
             return true;
         }
 
+        trackVelocity(motionEvent);
+
         switch (action) {
             case MotionEvent.ACTION_MOVE: {
                 if (mActivePointerId == INVALID) {
@@ -555,6 +922,9 @@ class DialogLayout extends LinearLayout {
                 }
 
                 final int pointerIndex = MotionEventCompat.findPointerIndex(motionEvent, mActivePointerId);
+                if (pointerIndex < 0) {
+                    break;
+                }
                 final float y = MotionEventCompat.getY(motionEvent, pointerIndex);
                 final float dy = y - mLastMotionY;
                 float yDiff = Math.abs(y - mInitialMotionY);
@@ -572,12 +942,10 @@ class DialogLayout extends LinearLayout {
                     mLastMotionY = dy > 0 ? mInitialMotionY + mTouchSlop / 2 : mInitialMotionY - mTouchSlop / 2;
                 }
                 if (mState == Dialog.State.DRAGGING) {
-                    mLastMotionDeltaY = dy;
                     // Scroll to follow the motion event
-                    final int activePointerIndex = MotionEventCompat.findPointerIndex(motionEvent, mActivePointerId);
-                    float position = MotionEventCompat.getY(motionEvent, activePointerIndex);
-
-                    performDrag(position, motionEvent);
+                    if (performDrag(y)) {
+                        releaseDrag();
+                    }
                 }
                 break;
             }
@@ -615,6 +983,16 @@ class DialogLayout extends LinearLayout {
 
         final int action = motionEvent.getAction();
 
+        if ((action & MotionEventCompat.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+            mIsDragReleased = false;
+        } else if (mIsDragReleased) {
+            // the dialog has been fully expanded, the content continues the gesture
+            forwardToContent(motionEvent, false);
+            return true;
+        }
+
+        trackVelocity(motionEvent);
+
         switch (action & MotionEventCompat.ACTION_MASK) {
             case MotionEvent.ACTION_DOWN: {
                 /*
@@ -637,9 +1015,12 @@ class DialogLayout extends LinearLayout {
                     onSecondaryPointerUp(motionEvent);
                 }
                 final int pointerIndex = MotionEventCompat.findPointerIndex(motionEvent, mActivePointerId);
+                if (pointerIndex < 0) {
+                    break;
+                }
                 final float y = MotionEventCompat.getY(motionEvent, pointerIndex);
                 final float dy = y - mLastMotionY;
-                final float yDiff = Math.abs(y - mLastMotionY);
+                final float yDiff = Math.abs(dy);
 
                 if (mState != Dialog.State.DRAGGING && mState != Dialog.State.SETTLING) {
                     if (yDiff > mTouchSlop) {
@@ -650,27 +1031,19 @@ class DialogLayout extends LinearLayout {
 
                 // Important! Note that state can be set above.
                 if (mState == Dialog.State.DRAGGING) {
-                    mLastMotionDeltaY = dy;
                     // Scroll to follow the motion event
-                    final int activePointerIndex = MotionEventCompat.findPointerIndex(motionEvent, mActivePointerId);
-                    float position = MotionEventCompat.getY(motionEvent, activePointerIndex);
-
-                    performDrag(position, motionEvent);
+                    if (performDrag(y)) {
+                        releaseDrag();
+                        // the content has been cancelled when the drag was intercepted, it starts over here
+                        forwardToContent(motionEvent, true);
+                    }
                 }
                 break;
             case MotionEvent.ACTION_CANCEL:
                 // use fall through effect...
             case MotionEvent.ACTION_UP:
                 if (mState == Dialog.State.DRAGGING) {
-
-                    setState(Dialog.State.SETTLING);
-
-                    if (mLastMotionDeltaY < 0) {
-                        expand();
-                    } else {
-                        collapse();
-                    }
-
+                    settle();
                     mActivePointerId = INVALID;
                 }
                 break;
@@ -699,16 +1072,21 @@ class DialogLayout extends LinearLayout {
         }
     }
 
-    private void performDrag(float position, MotionEvent motionEvent) {
+    /**
+     * Scroll the dialog to follow the pointer.
+     *
+     * @param position current position of the active pointer
+     * @return true if the dialog has been fully expanded and further motion belongs to the content
+     */
+    private boolean performDrag(float position) {
         final float deltaY = mLastMotionY - position;
         mLastMotionY = position;
 
         boolean endPositionReached = false;
 
-        float oldScrollY = getScrollY();
-        float scrollY = oldScrollY + deltaY;
+        float scrollY = getScrollY() + deltaY;
 
-        float maxScroll = (mContentContainer.getHeight() > mCollapsedHeight) ? -1 * (mContentContainer.getHeight() - mCollapsedHeight) : 0;
+        float maxScroll = getMaxScroll();
 
         if (scrollY < maxScroll) {
             scrollY = maxScroll;
@@ -722,17 +1100,46 @@ class DialogLayout extends LinearLayout {
         if (mIsFooterAlwaysVisible) {
             mFooterContainer.setTranslationY(scrollY);
         }
+        // scrollTo() invalidates the dialog on its own
         scrollTo(getScrollX(), (int) scrollY);
-        ViewCompat.postInvalidateOnAnimation(this);
 
-        if (endPositionReached) {
-            MotionEvent newMotionEvent = MotionEvent.obtain(motionEvent);
-            newMotionEvent.setAction(MotionEvent.ACTION_CANCEL);
-            dispatchTouchEvent(newMotionEvent);
+        return endPositionReached;
+    }
 
-            newMotionEvent = MotionEvent.obtain(motionEvent);
-            newMotionEvent.setAction(MotionEvent.ACTION_DOWN);
-            dispatchTouchEvent(newMotionEvent);
+    /**
+     * Release the drag once the dialog has been fully expanded. The dialog stops intercepting until the gesture
+     * ends, like a child calling requestDisallowInterceptTouchEvent(), so a content which still receives the gesture
+     * continues it. If the dialog had intercepted the gesture, the rest of it is forwarded by {@link #onTouchEvent(MotionEvent)}.
+     */
+    private void releaseDrag() {
+        mIsDragReleased = true;
+        mActivePointerId = INVALID;
+    }
+
+    /**
+     * Deliver an event of a released drag to the content container. The event is moved into the coordinates
+     * of the container and restored afterwards, so no event is obtained while dragging.
+     * @param isFirst deliver the event as ACTION_DOWN, which starts the gesture of the content
+     */
+    private void forwardToContent(MotionEvent motionEvent, boolean isFirst) {
+        final int action = motionEvent.getAction();
+        final float offsetX = getScrollX() - mContentContainer.getLeft() - mContentContainer.getTranslationX();
+        final float offsetY = getScrollY() - mContentContainer.getTop() - mContentContainer.getTranslationY();
+        if (isFirst) {
+            motionEvent.setAction(MotionEvent.ACTION_DOWN);
+        }
+        motionEvent.offsetLocation(offsetX, offsetY);
+        mContentContainer.dispatchTouchEvent(motionEvent);
+        motionEvent.offsetLocation(-offsetX, -offsetY);
+        motionEvent.setAction(action);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
         }
     }
 
@@ -769,41 +1176,194 @@ class DialogLayout extends LinearLayout {
         }
     }
 
+    @Override
+    public void requestLayout() {
+        mLayoutGeneration++;
+        super.requestLayout();
+    }
+
+    @Override
+    public void forceLayout() {
+        mLayoutGeneration++;
+        super.forceLayout();
+    }
+
+    /**
+     * @return number of measure passes which could not be served from the measure cache
+     */
+    int getMeasurePassCount() {
+        return mMeasurePassCount;
+    }
+
+    /**
+     * @return monitor of the frames drawn while the dialog is in motion, or null if no motion has been monitored yet
+     */
+    FrameMonitor getFrameMonitor() {
+        return mFrameMonitor;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        // Parents may measure the dialog several times within one layout pass (e.g. FrameLayout with match_parent children).
+        // Nothing has changed in between, if the measure specs are the same and no layout has been requested since.
+        if (widthMeasureSpec == mCachedWidthMeasureSpec && heightMeasureSpec == mCachedHeightMeasureSpec
+                && mLayoutGeneration == mCachedLayoutGeneration) {
+            setMeasuredDimension(getMeasuredWidthAndState(), getMeasuredHeightAndState());
+            return;
+        }
+        mMeasurePassCount++;
+        final long measureStartTime = System.nanoTime();
+
+        final int width = MeasureSpec.getSize(widthMeasureSpec);
+        final int height = MeasureSpec.getSize(heightMeasureSpec);
+        final int availableWidth = width - getPaddingLeft() - getPaddingRight();
+        final int availableHeight = height - getPaddingTop() - getPaddingBottom();
+
+        // apply the bounds of the content container up front, so the holder stacks header, content and footer
+        // within the final height and every child is measured only once
+        final int boundedWidth = mContentContainer.getBoundedWidth();
+        final int boundedHeight = mContentContainer.getBoundedHeight();
+        final int containerWidth = (0 < boundedWidth && boundedWidth < availableWidth) ? boundedWidth : availableWidth;
+        final int maxHeight = (0 < boundedHeight && boundedHeight < availableHeight) ? boundedHeight : availableHeight;
+        mContentContainer.measure(MeasureSpec.makeMeasureSpec(containerWidth, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(maxHeight, MeasureSpec.AT_MOST));
+
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+
+        mCachedWidthMeasureSpec = widthMeasureSpec;
+        mCachedHeightMeasureSpec = heightMeasureSpec;
+        mCachedLayoutGeneration = mLayoutGeneration;
+
+        if (mMetrics != null) {
+            mMetrics.onMeasured(mDialog, System.nanoTime() - measureStartTime);
+        }
+    }
 
-        int height = mContentContainer.getMeasuredHeight();
-        int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
-        int verticalMargin = mMargin[1] + mMargin[3]; // mMargin[1] == marginTop & mMargin[3] == marginBottom
-        View contentView = mHolder.getInflatedView();
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        // the dialog is dragged as a whole, the content handles its own scrolling
+        return false;
+    }
+
+    @Override
+    protected void dispatchDraw(@android.support.annotation.NonNull Canvas canvas) {
+        drawScrim(canvas);
+        super.dispatchDraw(canvas);
+        if (mShowTime != INVALID && mMetrics != null) {
+            mMetrics.onFirstFrame(mDialog, System.nanoTime() - mShowTime);
+        }
+        mShowTime = INVALID;
+    }
 
-        mHeaderContainer.measure(widthMeasureSpec, unspecified);
-        mFooterContainer.measure(widthMeasureSpec, unspecified);
-        contentView.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(height - mHeaderContainer.getMeasuredHeight() - mFooterContainer.getMeasuredHeight() - verticalMargin, MeasureSpec.AT_MOST));
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        mStateDispatcher.dispatchSlide(mDialog);
+    }
 
-        int finalHeight = mHeaderContainer.getMeasuredHeight() + contentView.getMeasuredHeight() + mFooterContainer.getMeasuredHeight() + verticalMargin;
+    /**
+     * Fade the dim in or out along with the in / out transition.
+     * Only the dialog layout itself is invalidated while fading, the content is not redrawn.
+     */
+    private void startDimFade(float target) {
+        if (!mIsBackgroundDimEnabled) {
+            return;
+        }
+        mDimFadeStart = mDimFade;
+        mDimFadeTarget = target;
+        mDimFadeStartTime = AnimationUtils.currentAnimationTimeMillis();
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
 
-        if (finalHeight < height) {
-            mContentContainer.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(finalHeight, MeasureSpec.EXACTLY));
-            if (mGravity == Dialog.Gravity.BOTTOM) {
-                mTopView.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(height - finalHeight, MeasureSpec.EXACTLY));
+    /**
+     * @return alpha of the dim depending on the fade and the position of the sheet
+     */
+    private int computeDimAlpha() {
+        if (mDimFadeStartTime != INVALID) {
+            float t = (AnimationUtils.currentAnimationTimeMillis() - mDimFadeStartTime) / (float) DIM_FADE_DURATION;
+            if (t >= 1f) {
+                mDimFade = mDimFadeTarget;
+                mDimFadeStartTime = INVALID;
             } else {
-                int helperHeightMeasureSpec = MeasureSpec.makeMeasureSpec((height - finalHeight) / 2, MeasureSpec.EXACTLY);
-                mTopView.measure(widthMeasureSpec, helperHeightMeasureSpec);
-                mBottomView.measure(widthMeasureSpec, helperHeightMeasureSpec);
+                mDimFade = mDimFadeStart + (mDimFadeTarget - mDimFadeStart) * t;
+                // redraws only this layout, the display lists of the children are reused
+                ViewCompat.postInvalidateOnAnimation(this);
             }
-        } else {
-            contentView.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(height - mHeaderContainer.getMeasuredHeight() - mFooterContainer.getMeasuredHeight(), MeasureSpec.EXACTLY));
+        }
+        float slide = COLLAPSED_DIM_FRACTION + (1f - COLLAPSED_DIM_FRACTION) * Math.max(0f, Math.min(1f, getSlideOffset()));
+        return (int) (Color.alpha(DIM_COLOR) * mDimFade * slide);
+    }
+
+    /**
+     * Draw the dim around the sheet, so no pixel of the sheet is painted twice.
+     * The sheet itself is painted by one background on the root view of the holder (see
+     * {@link Holder#setBackgroundColor(int)}), its header, content and footer containers stay transparent.
+     * The dim covers the whole dialog during transitions because the sheet is animated on its own.
+     * Its alpha follows the position of the sheet, which is redrawn by scrolling this layout anyway.
+     * Called by {@link #dispatchDraw(Canvas)}
+     */
+    void drawScrim(Canvas canvas) {
+        if (!mIsBackgroundDimEnabled) {
+            return;
+        }
+        final int alpha = computeDimAlpha();
+        if (alpha == 0) {
+            return;
+        }
+        mDimPaint.setAlpha(alpha);
+        // the canvas is translated by the scroll position
+        final int left = getScrollX();
+        final int top = getScrollY();
+        final int right = left + getWidth();
+        final int bottom = top + getHeight();
+        if (mIsTransitionRunning || mSheetView == null || mSheetView.getVisibility() != View.VISIBLE) {
+            canvas.drawRect(left, top, right, bottom, mDimPaint);
+            return;
+        }
+
+        final int sheetLeft = Math.max(left, mContentContainer.getLeft() + mSheetView.getLeft());
+        final int sheetTop = Math.max(top, mContentContainer.getTop() + mSheetView.getTop());
+        final int sheetRight = Math.min(right, mContentContainer.getLeft() + mSheetView.getRight());
+        final int sheetBottom = Math.min(bottom, mContentContainer.getTop() + mSheetView.getBottom());
+        if (sheetLeft >= sheetRight || sheetTop >= sheetBottom) {
+            canvas.drawRect(left, top, right, bottom, mDimPaint);
+            return;
+        }
+        drawDimRect(canvas, left, top, right, sheetTop);
+        drawDimRect(canvas, left, sheetBottom, right, bottom);
+        drawDimRect(canvas, left, sheetTop, sheetLeft, sheetBottom);
+        drawDimRect(canvas, sheetRight, sheetTop, right, sheetBottom);
+    }
+
+    private void drawDimRect(Canvas canvas, int left, int top, int right, int bottom) {
+        if (left < right && top < bottom) {
+            canvas.drawRect(left, top, right, bottom, mDimPaint);
         }
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        super.onLayout(changed, l, t, r, b);
+        // centered horizontally, at the bottom or centered vertically depending on the gravity
+        final int availableWidth = r - l - getPaddingLeft() - getPaddingRight();
+        final int availableHeight = b - t - getPaddingTop() - getPaddingBottom();
+        final int containerWidth = mContentContainer.getMeasuredWidth();
+        final int containerHeight = mContentContainer.getMeasuredHeight();
+        final int containerLeft = getPaddingLeft() + (availableWidth - containerWidth) / 2;
+        final int containerTop = getPaddingTop() + ((mGravity == Dialog.Gravity.BOTTOM) ? availableHeight - containerHeight : (availableHeight - containerHeight) / 2);
+        // the cut out of the scrim follows the bounds of the sheet
+        final boolean isScrimChanged = mIsBackgroundDimEnabled
+                && (mContentContainer.getLeft() != containerLeft || mContentContainer.getTop() != containerTop
+                || mContentContainer.getWidth() != containerWidth || mContentContainer.getHeight() != containerHeight);
+        mContentContainer.layout(containerLeft, containerTop, containerLeft + containerWidth, containerTop + containerHeight);
+
+        if (isScrimChanged) {
+            invalidate();
+        }
 
         float previousMaxScroll = mMaxScroll;
-        mMaxScroll = (mContentContainer.getHeight() > mCollapsedHeight) ? -1 * (mContentContainer.getHeight() - mCollapsedHeight) : 0;
+        mMaxScroll = getMaxScroll();
+        if (mMaxScroll != previousMaxScroll) {
+            mStateDispatcher.dispatchSlide(mDialog);
+        }
 
         if (previousMaxScroll == INVALID) {
             if (mCollapsedHeight != INVALID) {
@@ -813,4 +1373,26 @@ class DialogLayout extends LinearLayout {
             }
         }
     }
+
+    /**
+     * Detached content views of a dialog, which are inflated before its layout gets created.
+     * Inflating them does not touch the window of the activity, so it may run on a background thread
+     * as long as the views themselves do not require the main thread.
+     *
+     * @see Dialog.Builder#createAsync(OnCreateListener)
+     */
+    static final class Content {
+        final Holder holder;
+        final View holderView;
+        final View headerView;
+        final View footerView;
+
+        Content(Dialog.Builder builder) {
+            holder = createHolder(builder);
+            holder.setBackgroundColor(builder.backgroundColorResourceId);
+            holderView = holder.getView(LayoutInflater.from(builder.context), null);
+            headerView = inflateView(builder.context, builder.headerView, builder.headerResourceId);
+            footerView = inflateView(builder.context, builder.footerView, builder.footerResourceId);
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package ch.temparus.android.dialog;
+
+import java.util.ArrayList;
+
+/**
+ * Shows the dialogs of an activity one after another.
+ *
+ * Dialogs passed to {@link #show(Dialog, String, int)} are queued by priority and shown as soon as the
+ * previous dialog has been dismissed, so only one dialog layout is attached to the activity at a time.
+ * A dialog with the key of a queued dialog replaces the queued one, a dialog with the key of the
+ * dialog currently shown is dropped.
+ *
+ * Note: A manager keeps references to dialogs of its activity and must not be shared between activities.
+ * All methods have to be called on the main thread.
+ *
+ * @author Sandro Lutz
+ */
+public class DialogManager {
+
+    public static final int PRIORITY_DEFAULT = 0;
+
+    private final ArrayList<Request> mQueue = new ArrayList<>(); // highest priority first
+    private Request mCurrent;
+
+    /**
+     * Show the dialog with default priority and without key.
+     */
+    @SuppressWarnings("unused")
+    public void show(Dialog dialog) {
+        show(dialog, null, PRIORITY_DEFAULT);
+    }
+
+    /**
+     * Show the dialog as soon as all previously queued dialogs with the same or a higher priority
+     * have been dismissed.
+     * @param key key identifying duplicates or null if the dialog has no duplicates
+     * @param priority dialogs with a higher priority are shown first
+     */
+    public void show(Dialog dialog, String key, int priority) {
+        if (dialog == null) {
+            throw new NullPointerException("Dialog must not be null");
+        }
+        if (key != null) {
+            if (mCurrent != null && key.equals(mCurrent.key)) {
+                return;
+            }
+            for (int i = 0; i < mQueue.size(); i++) {
+                Request request = mQueue.get(i);
+                if (key.equals(request.key)) {
+                    // the newer dialog replaces the queued one and keeps its place if that has a higher priority
+                    mQueue.remove(i);
+                    priority = Math.max(priority, request.priority);
+                    break;
+                }
+            }
+        } else if (isQueued(dialog)) {
+            return;
+        }
+
+        // insert after all requests with the same or a higher priority
+        int index = 0;
+        while (index < mQueue.size() && mQueue.get(index).priority >= priority) {
+            index++;
+        }
+        mQueue.add(index, new Request(dialog, key, priority));
+        showNext();
+    }
+
+    /**
+     * Remove the dialog from the queue. Dialogs which are already shown have to be dismissed instead.
+     * @return true if the dialog has been queued
+     */
+    @SuppressWarnings("unused")
+    public boolean cancel(Dialog dialog) {
+        for (int i = 0; i < mQueue.size(); i++) {
+            if (mQueue.get(i).dialog == dialog) {
+                mQueue.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all queued dialogs and dismiss the dialog currently shown.
+     */
+    @SuppressWarnings("unused")
+    public void dismissAll() {
+        mQueue.clear();
+        if (mCurrent != null) {
+            mCurrent.dialog.dismiss();
+        }
+    }
+
+    /**
+     * @return dialog currently shown by this manager or null
+     */
+    @SuppressWarnings("unused")
+    public Dialog getCurrentDialog() {
+        return (mCurrent != null) ? mCurrent.dialog : null;
+    }
+
+    /**
+     * @return number of dialogs waiting to be shown
+     */
+    @SuppressWarnings("unused")
+    public int getQueuedCount() {
+        return mQueue.size();
+    }
+
+    /**
+     * Called by {@link Dialog} after its {@link ch.temparus.android.dialog.listeners.OnDismissListener}
+     */
+    void onDismissed(Dialog dialog) {
+        if (mCurrent != null && mCurrent.dialog == dialog) {
+            mCurrent = null;
+            showNext();
+        }
+    }
+
+    private boolean isQueued(Dialog dialog) {
+        if (mCurrent != null && mCurrent.dialog == dialog) {
+            return true;
+        }
+        for (int i = 0; i < mQueue.size(); i++) {
+            if (mQueue.get(i).dialog == dialog) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void showNext() {
+        if (mCurrent != null || mQueue.isEmpty()) {
+            return;
+        }
+        mCurrent = mQueue.remove(0);
+        mCurrent.dialog.setDialogManager(this);
+        mCurrent.dialog.show();
+    }
+
+    private static final class Request {
+        final Dialog dialog;
+        final String key;
+        final int priority;
+
+        Request(Dialog dialog, String key, int priority) {
+            this.dialog = dialog;
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ch.temparus.android.dialog;
+
+import android.content.Context;
+import ch.temparus.android.dialog.holder.ListViewHolder;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of dismissed dialog layouts which are reused by {@link Dialog.Builder#create()}.
+ *
+ * Layouts are keyed by the class of the content holder and the builder configuration which affects
+ * the layout (gravity and dimensions). A dialog created with the same configuration as a pooled one
+ * reuses its layout and binds its holder, header and footer to it. Holders implementing
+ * {@link ch.temparus.android.dialog.holder.RecyclableHolder} take over the content view as well.
+ *
+ * Note: A pool keeps references to views of its activity and must not be shared between activities.
+ *
+ * @author Sandro Lutz
+ */
+public class DialogPool {
+
+    public static final int DEFAULT_MAX_SIZE = 4;
+
+    private final int mMaxSize;
+    private final LinkedList<DialogLayout> mLayouts = new LinkedList<>(); // least recently released first
+    private int mHitCount;
+    private int mMissCount;
+
+    @SuppressWarnings("unused")
+    public DialogPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximal number of dismissed dialogs kept in this pool
+     */
+    public DialogPool(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get a layout for the given dialog. Reuses a pooled layout if one matches the builder configuration.
+     */
+    synchronized DialogLayout obtain(Dialog dialog, Dialog.Builder builder, DialogLayout.Content content) {
+        Key key = new Key(builder);
+        Iterator<DialogLayout> iterator = mLayouts.descendingIterator();
+        while (iterator.hasNext()) {
+            DialogLayout layout = iterator.next();
+            if (key.equals(layout.getPoolKey())) {
+                iterator.remove();
+                mHitCount++;
+                layout.rebind(dialog, builder, content);
+                return layout;
+            }
+        }
+        mMissCount++;
+        return new DialogLayout(dialog, builder, content);
+    }
+
+    /**
+     * @return true if a pooled layout matches the builder configuration
+     */
+    synchronized boolean contains(Dialog.Builder builder) {
+        Key key = new Key(builder);
+        for (DialogLayout layout : mLayouts) {
+            if (key.equals(layout.getPoolKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return a dismissed layout to the pool. Evicts the least recently released layout if the pool is full.
+     */
+    synchronized void release(DialogLayout layout) {
+        if (mLayouts.contains(layout)) {
+            return;
+        }
+        mLayouts.addLast(layout);
+        if (mLayouts.size() > mMaxSize) {
+            mLayouts.removeFirst();
+        }
+    }
+
+    /**
+     * Remove all pooled layouts
+     */
+    @SuppressWarnings("unused")
+    public synchronized void clear() {
+        mLayouts.clear();
+    }
+
+    /**
+     * @return number of dismissed layouts currently held by the pool
+     */
+    @SuppressWarnings("unused")
+    public synchronized int getSize() {
+        return mLayouts.size();
+    }
+
+    @SuppressWarnings("unused")
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * @return number of dialogs which have been created from a pooled layout
+     */
+    @SuppressWarnings("unused")
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return number of dialogs which had to inflate a new layout
+     */
+    @SuppressWarnings("unused")
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Builder configuration which determines whether a pooled layout can be reused.
+     */
+    static final class Key {
+        private final Context mContext;
+        private final Dialog.Gravity mGravity;
+        private final Class<?> mHolderClass;
+        private final int mMaxWidth;
+        private final int mMaxHeight;
+        private final int[] mMargin;
+        private final int[] mPadding;
+
+        Key(Dialog.Builder builder) {
+            mContext = builder.context;
+            mGravity = builder.gravity;
+            // header, footer and colors are bound again, the content view can only be taken over by the same holder class
+            mHolderClass = (builder.holder != null) ? builder.holder.getClass() : ListViewHolder.class;
+            mMaxWidth = builder.maxWidth;
+            mMaxHeight = builder.maxHeight;
+            mMargin = builder.margin.clone();
+            mPadding = builder.padding.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mContext == key.mContext
+                    && mGravity == key.mGravity
+                    && mHolderClass == key.mHolderClass
+                    && mMaxWidth == key.mMaxWidth
+                    && mMaxHeight == key.mMaxHeight
+                    && Arrays.equals(mMargin, key.mMargin)
+                    && Arrays.equals(mPadding, key.mPadding);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mContext);
+            result = 31 * result + mGravity.hashCode();
+            result = 31 * result + mHolderClass.hashCode();
+            result = 31 * result + mMaxWidth;
+            result = 31 * result + mMaxHeight;
+            result = 31 * result + Arrays.hashCode(mMargin);
+            result = 31 * result + Arrays.hashCode(mPadding);
+            return result;
+        }
+    }
+}
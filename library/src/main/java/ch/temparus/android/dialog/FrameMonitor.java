@@ -0,0 +1,79 @@
+package ch.temparus.android.dialog;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Counts rendered, janky and dropped frames with {@link Choreographer} frame callbacks.
+ * FrameMonitor is used internally by {@link DialogLayout}
+ *
+ * @author Sandro Lutz
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameMonitor implements Choreographer.FrameCallback {
+
+    private final long mFrameIntervalNanos;
+    private boolean mIsRunning;
+    private long mLastFrameTimeNanos;
+    private int mFrameCount;
+    private int mJankyFrameCount;
+    private int mDroppedFrameCount;
+
+    FrameMonitor(Context context) {
+        float refreshRate = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getRefreshRate();
+        mFrameIntervalNanos = (long) (1000000000L / ((refreshRate > 0) ? refreshRate : 60f));
+    }
+
+    void start() {
+        if (mIsRunning) {
+            return;
+        }
+        mIsRunning = true;
+        mLastFrameTimeNanos = 0;
+        mFrameCount = 0;
+        mJankyFrameCount = 0;
+        mDroppedFrameCount = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        mIsRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    boolean isRunning() {
+        return mIsRunning;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mIsRunning) {
+            return;
+        }
+        if (mLastFrameTimeNanos != 0) {
+            int skippedFrames = (int) ((frameTimeNanos - mLastFrameTimeNanos) / mFrameIntervalNanos) - 1;
+            if (skippedFrames > 0) {
+                mJankyFrameCount++;
+                mDroppedFrameCount += skippedFrames;
+            }
+            mFrameCount++;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    int getFrameCount() {
+        return mFrameCount;
+    }
+
+    int getJankyFrameCount() {
+        return mJankyFrameCount;
+    }
+
+    int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+}
@@ -0,0 +1,148 @@
+package ch.temparus.android.dialog;
+
+import android.support.v4.view.ViewCompat;
+import ch.temparus.android.dialog.listeners.OnSlideListener;
+import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+
+import java.util.ArrayList;
+
+/**
+ * Delivers the state changes and the slide offset of a {@link DialogLayout} at most once per frame.
+ *
+ * Transitions reported between two frames are collapsed into the last one and are only delivered if the
+ * final state differs from the last delivered state. A drag which ends in the state it started from is
+ * therefore delivered as DRAGGING followed by the stable state, no matter how often the touch events
+ * switched the state in between. The slide offset is computed once per frame from the scroll position.
+ * StateDispatcher is used internally by {@link DialogLayout}
+ *
+ * @author Sandro Lutz
+ */
+class StateDispatcher implements Runnable {
+
+    private final DialogLayout mLayout;
+    private OnStateChangeListener mListener; // listener of the content holder
+    private Dialog mDialog;
+    private Dialog.State mPendingState;
+    private Dialog.State mDeliveredState;
+    private Dialog.State mStableState;
+    private Dialog.State mPreviousStableState;
+    private boolean mIsSlidePending;
+    private float mDeliveredSlideOffset = Float.NaN;
+    private boolean mIsScheduled;
+
+    StateDispatcher(DialogLayout layout) {
+        mLayout = layout;
+    }
+
+    void setListener(OnStateChangeListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Report a state change. The listeners are called on the next frame with the latest reported state.
+     */
+    void dispatch(Dialog dialog, Dialog.State state) {
+        mDialog = dialog;
+        mPendingState = state;
+        schedule();
+    }
+
+    /**
+     * Report a change of the scroll position. Ignored if the dialog has no {@link OnSlideListener}.
+     */
+    void dispatchSlide(Dialog dialog) {
+        if (dialog == null || dialog.getOnSlideListeners().isEmpty()) {
+            return;
+        }
+        mDialog = dialog;
+        mIsSlidePending = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!mIsScheduled) {
+            mIsScheduled = true;
+            ViewCompat.postOnAnimation(mLayout, this);
+        }
+    }
+
+    /**
+     * Deliver pending changes immediately, e.g. before the layout gets detached.
+     */
+    void flush() {
+        if (mIsScheduled) {
+            mLayout.removeCallbacks(this);
+            run();
+        }
+    }
+
+    /**
+     * Drop pending changes and forget the delivered states. Called when a layout is reused.
+     */
+    void reset() {
+        if (mIsScheduled) {
+            mLayout.removeCallbacks(this);
+            mIsScheduled = false;
+        }
+        mDialog = null;
+        mPendingState = null;
+        mDeliveredState = null;
+        mStableState = null;
+        mPreviousStableState = null;
+        mIsSlidePending = false;
+        mDeliveredSlideOffset = Float.NaN;
+    }
+
+    /**
+     * @return stable state (collapsed or expanded) delivered before the last delivered stable state
+     *         or null if there is none
+     */
+    Dialog.State getPreviousStableState() {
+        return mPreviousStableState;
+    }
+
+    @Override
+    public void run() {
+        mIsScheduled = false;
+        deliverSlide();
+        deliverState();
+    }
+
+    private void deliverSlide() {
+        if (!mIsSlidePending) {
+            return;
+        }
+        mIsSlidePending = false;
+        final float slideOffset = mLayout.getSlideOffset();
+        if (slideOffset == mDeliveredSlideOffset) {
+            return;
+        }
+        mDeliveredSlideOffset = slideOffset;
+        // iterate backwards, listeners may remove themselves
+        final ArrayList<OnSlideListener> listeners = mDialog.getOnSlideListeners();
+        for (int i = listeners.size() - 1; i >= 0; i--) {
+            listeners.get(i).onSlide(mDialog, slideOffset);
+        }
+    }
+
+    private void deliverState() {
+        final Dialog.State state = mPendingState;
+        if (state == null || state == mDeliveredState) {
+            return;
+        }
+        mDeliveredState = state;
+        if (state == Dialog.State.COLLAPSED || state == Dialog.State.EXPANDED) {
+            mPreviousStableState = mStableState;
+            mStableState = state;
+        }
+        if (mListener != null) {
+            mListener.onStateChanged(mDialog, state);
+        }
+        if (mDialog != null) {
+            final ArrayList<OnStateChangeListener> listeners = mDialog.getOnStateChangeListeners();
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                listeners.get(i).onStateChanged(mDialog, state);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ch.temparus.android.dialog.animation;
+
+import android.view.View;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+
+/**
+ * TransitionEngine running the animation resources as {@link Animation} on the target view.
+ *
+ * Note: The animation resource is parsed again for every transition.
+ *       Prefer {@link PropertyTransitionEngine} if possible.
+ *
+ * @author Sandro Lutz
+ */
+public class LegacyTransitionEngine implements TransitionEngine {
+
+    @Override
+    public void start(View target, int resId, final Runnable endAction) {
+        cancel(target);
+        Animation animation = AnimationUtils.loadAnimation(target.getContext(), resId);
+        animation.setAnimationListener(new Animation.AnimationListener() {
+            @Override
+            public void onAnimationStart(Animation animation) {
+
+            }
+
+            @Override
+            public void onAnimationEnd(Animation animation) {
+                if (endAction != null) {
+                    endAction.run();
+                }
+            }
+
+            @Override
+            public void onAnimationRepeat(Animation animation) {
+
+            }
+        });
+        target.startAnimation(animation);
+    }
+
+    @Override
+    public void cancel(View target) {
+        Animation animation = target.getAnimation();
+        if (animation != null) {
+            // clearing the animation would notify the listener otherwise
+            animation.setAnimationListener(null);
+            target.clearAnimation();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ch.temparus.android.dialog.animation;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import ch.temparus.android.dialog.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransitionEngine running the animation resources as property animations.
+ *
+ * Animation resources are parsed once and cached per resource id, dimensions are converted to pixels
+ * with the display metrics of the target view when the animation starts. Property animations only change
+ * the render properties of the target view and do not depend on the UI thread to redraw its content.
+ * Resources which can't be expressed as property animation are run by {@link LegacyTransitionEngine}.
+ *
+ * @author Sandro Lutz
+ */
+public class PropertyTransitionEngine implements TransitionEngine {
+
+    private final SparseArray<TransitionSpec> mSpecs = new SparseArray<>();
+    private final SparseArray<Boolean> mUnsupported = new SparseArray<>();
+    private final TransitionEngine mFallback = new LegacyTransitionEngine();
+
+    @Override
+    public void start(final View target, int resId, final Runnable endAction) {
+        cancel(target);
+
+        final TransitionSpec spec = getSpec(target, resId);
+        if (spec == null) {
+            mFallback.start(target, resId, endAction);
+            return;
+        }
+
+        if (target.getWidth() == 0 || target.isLayoutRequested()) {
+            // relative values need the size of the target view
+            final ViewTreeObserver.OnPreDrawListener listener = new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    target.getViewTreeObserver().removeOnPreDrawListener(this);
+                    startAnimator(target, spec, endAction);
+                    return true;
+                }
+            };
+            target.setTag(R.id.dialog_transition, listener);
+            target.getViewTreeObserver().addOnPreDrawListener(listener);
+        } else {
+            startAnimator(target, spec, endAction);
+        }
+    }
+
+    @Override
+    public void cancel(View target) {
+        mFallback.cancel(target);
+
+        Object transition = target.getTag(R.id.dialog_transition);
+        target.setTag(R.id.dialog_transition, null);
+        if (transition instanceof Animator) {
+            ((Animator) transition).cancel();
+        } else if (transition instanceof ViewTreeObserver.OnPreDrawListener) {
+            target.getViewTreeObserver().removeOnPreDrawListener((ViewTreeObserver.OnPreDrawListener) transition);
+        }
+    }
+
+    private TransitionSpec getSpec(View target, int resId) {
+        synchronized (mSpecs) {
+            TransitionSpec spec = mSpecs.get(resId);
+            if (spec == null && mUnsupported.get(resId) == null) {
+                spec = TransitionSpec.parse(target.getContext(), resId);
+                if (spec != null) {
+                    mSpecs.put(resId, spec);
+                } else {
+                    mUnsupported.put(resId, Boolean.TRUE);
+                }
+            }
+            return spec;
+        }
+    }
+
+    private void startAnimator(final View target, TransitionSpec spec, final Runnable endAction) {
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final View parent = (View) target.getParent();
+        final int parentWidth = (parent != null) ? parent.getWidth() : 0;
+        final int parentHeight = (parent != null) ? parent.getHeight() : 0;
+        final DisplayMetrics metrics = target.getResources().getDisplayMetrics();
+
+        List<PropertyValuesHolder> values = new ArrayList<>(5);
+
+        target.setAlpha(1f);
+        if (spec.hasAlpha) {
+            values.add(PropertyValuesHolder.ofFloat("alpha", spec.fromAlpha, spec.toAlpha));
+        }
+
+        target.setScaleX(1f);
+        target.setScaleY(1f);
+        if (spec.hasScale) {
+            target.setPivotX(spec.pivotX.resolve(width, parentWidth, metrics));
+            target.setPivotY(spec.pivotY.resolve(height, parentHeight, metrics));
+            values.add(PropertyValuesHolder.ofFloat("scaleX", spec.fromXScale.value, spec.toXScale.value));
+            values.add(PropertyValuesHolder.ofFloat("scaleY", spec.fromYScale.value, spec.toYScale.value));
+        }
+
+        target.setTranslationX(0f);
+        target.setTranslationY(0f);
+        if (spec.hasTranslate) {
+            values.add(PropertyValuesHolder.ofFloat("translationX",
+                    spec.fromXDelta.resolve(width, parentWidth, metrics), spec.toXDelta.resolve(width, parentWidth, metrics)));
+            values.add(PropertyValuesHolder.ofFloat("translationY",
+                    spec.fromYDelta.resolve(height, parentHeight, metrics), spec.toYDelta.resolve(height, parentHeight, metrics)));
+        }
+
+        ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(target, values.toArray(new PropertyValuesHolder[values.size()]));
+        animator.setDuration(spec.duration);
+        animator.setStartDelay(spec.startOffset);
+        if (spec.interpolator != null) {
+            animator.setInterpolator(spec.interpolator);
+        }
+        animator.addListener(new AnimatorListenerAdapter() {
+            private boolean mIsCancelled;
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mIsCancelled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (target.getTag(R.id.dialog_transition) == animation) {
+                    target.setTag(R.id.dialog_transition, null);
+                }
+                if (!mIsCancelled && endAction != null) {
+                    endAction.run();
+                }
+            }
+        });
+        target.setTag(R.id.dialog_transition, animator);
+        animator.start();
+    }
+}
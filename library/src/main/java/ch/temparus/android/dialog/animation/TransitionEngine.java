@@ -0,0 +1,29 @@
+package ch.temparus.android.dialog.animation;
+
+import android.support.annotation.AnimRes;
+import android.view.View;
+
+/**
+ * Interface for running the in and out transitions of a {@link ch.temparus.android.dialog.Dialog}.
+ *
+ * @see PropertyTransitionEngine
+ * @see LegacyTransitionEngine
+ * @author Sandro Lutz
+ */
+public interface TransitionEngine {
+
+    /**
+     * Start the transition described by an animation resource on the target view.
+     * A transition which is still running on the target view gets cancelled.
+     * @param target    view to animate
+     * @param resId     animation resource
+     * @param endAction called when the transition has finished. Not called if the transition gets cancelled.
+     */
+    void start(View target, @AnimRes int resId, Runnable endAction);
+
+    /**
+     * Cancel the running transition of the target view.
+     * @param target animated view
+     */
+    void cancel(View target);
+}
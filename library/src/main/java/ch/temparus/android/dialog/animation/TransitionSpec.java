@@ -0,0 +1,221 @@
+package ch.temparus.android.dialog.animation;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Parsed animation resource used by {@link PropertyTransitionEngine}.
+ *
+ * Supports a single {@code <alpha>}, {@code <scale>} and {@code <translate>} element, optionally wrapped
+ * into a {@code <set>}, sharing the same duration and start offset. The spec does not depend on the density
+ * of the display it has been parsed for, dimensions are converted to pixels when the animation starts.
+ *
+ * @author Sandro Lutz
+ */
+final class TransitionSpec {
+
+    static final int ABSOLUTE = 0;
+    static final int RELATIVE_TO_SELF = 1;
+    static final int RELATIVE_TO_PARENT = 2;
+
+    private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+    private static final int INVALID = -1;
+
+    long duration;
+    long startOffset;
+    Interpolator interpolator;
+
+    boolean hasAlpha;
+    float fromAlpha;
+    float toAlpha;
+
+    boolean hasScale;
+    Value fromXScale;
+    Value toXScale;
+    Value fromYScale;
+    Value toYScale;
+    Value pivotX;
+    Value pivotY;
+
+    boolean hasTranslate;
+    Value fromXDelta;
+    Value toXDelta;
+    Value fromYDelta;
+    Value toYDelta;
+
+    private TransitionSpec() {
+    }
+
+    /**
+     * Value of an animation attribute, e.g. "50%", "100%p" or "16dp".
+     * Dimensions are kept in their unit, so the spec can be shared between displays of different density.
+     */
+    static final class Value {
+        final int type;
+        final float value;
+        final int unit;
+
+        Value(int type, float value) {
+            this(type, value, TypedValue.COMPLEX_UNIT_PX);
+        }
+
+        Value(int type, float value, int unit) {
+            this.type = type;
+            this.value = value;
+            this.unit = unit;
+        }
+
+        float resolve(int size, int parentSize, DisplayMetrics metrics) {
+            switch (type) {
+                case RELATIVE_TO_SELF:
+                    return value * size;
+                case RELATIVE_TO_PARENT:
+                    return value * parentSize;
+                default:
+                    return TypedValue.applyDimension(unit, value, metrics);
+            }
+        }
+    }
+
+    /**
+     * Parse an animation resource.
+     * @return parsed spec or null if the resource uses elements or attributes which are not supported
+     */
+    static TransitionSpec parse(Context context, int resId) {
+        XmlResourceParser parser = null;
+        try {
+            parser = context.getResources().getAnimation(resId);
+            return parse(context, parser);
+        } catch (XmlPullParserException | IOException | NumberFormatException e) {
+            return null;
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
+    private static TransitionSpec parse(Context context, XmlResourceParser parser) throws XmlPullParserException, IOException {
+        final Resources res = context.getResources();
+        final TransitionSpec spec = new TransitionSpec();
+        long setDuration = INVALID;
+        long setStartOffset = 0;
+        long duration = INVALID;
+        long startOffset = INVALID;
+        int interpolatorResourceId = 0;
+
+        int type;
+        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (type != XmlPullParser.START_TAG) {
+                continue;
+            }
+            String name = parser.getName();
+
+            if ("set".equals(name)) {
+                if (parser.getDepth() > 1) {
+                    return null; // nested sets are not supported
+                }
+                setDuration = parser.getAttributeIntValue(ANDROID_NAMESPACE, "duration", INVALID);
+                setStartOffset = parser.getAttributeIntValue(ANDROID_NAMESPACE, "startOffset", 0);
+                interpolatorResourceId = parser.getAttributeResourceValue(ANDROID_NAMESPACE, "interpolator", 0);
+                continue;
+            }
+
+            if ("alpha".equals(name) && !spec.hasAlpha) {
+                spec.hasAlpha = true;
+                spec.fromAlpha = parser.getAttributeFloatValue(ANDROID_NAMESPACE, "fromAlpha", 1f);
+                spec.toAlpha = parser.getAttributeFloatValue(ANDROID_NAMESPACE, "toAlpha", 1f);
+            } else if ("scale".equals(name) && !spec.hasScale) {
+                spec.hasScale = true;
+                spec.fromXScale = readValue(res, parser, "fromXScale", 1f);
+                spec.toXScale = readValue(res, parser, "toXScale", 1f);
+                spec.fromYScale = readValue(res, parser, "fromYScale", 1f);
+                spec.toYScale = readValue(res, parser, "toYScale", 1f);
+                spec.pivotX = readValue(res, parser, "pivotX", 0f);
+                spec.pivotY = readValue(res, parser, "pivotY", 0f);
+            } else if ("translate".equals(name) && !spec.hasTranslate) {
+                spec.hasTranslate = true;
+                spec.fromXDelta = readValue(res, parser, "fromXDelta", 0f);
+                spec.toXDelta = readValue(res, parser, "toXDelta", 0f);
+                spec.fromYDelta = readValue(res, parser, "fromYDelta", 0f);
+                spec.toYDelta = readValue(res, parser, "toYDelta", 0f);
+            } else {
+                return null;
+            }
+
+            // all animations of the spec share one animator
+            long childDuration = parser.getAttributeIntValue(ANDROID_NAMESPACE, "duration", (int) setDuration);
+            long childStartOffset = parser.getAttributeIntValue(ANDROID_NAMESPACE, "startOffset", 0) + setStartOffset;
+            if ((duration != INVALID && duration != childDuration) || (startOffset != INVALID && startOffset != childStartOffset)) {
+                return null;
+            }
+            duration = childDuration;
+            startOffset = childStartOffset;
+            if (interpolatorResourceId == 0) {
+                interpolatorResourceId = parser.getAttributeResourceValue(ANDROID_NAMESPACE, "interpolator", 0);
+            }
+        }
+
+        if (duration == INVALID) {
+            return null;
+        }
+        spec.duration = duration;
+        spec.startOffset = startOffset;
+        if (interpolatorResourceId != 0) {
+            spec.interpolator = AnimationUtils.loadInterpolator(context, interpolatorResourceId);
+        }
+        return spec;
+    }
+
+    private static Value readValue(Resources res, XmlResourceParser parser, String name, float defaultValue) {
+        int resId = parser.getAttributeResourceValue(ANDROID_NAMESPACE, name, 0);
+        if (resId != 0) {
+            TypedValue typedValue = new TypedValue();
+            res.getValue(resId, typedValue, true);
+            switch (typedValue.type) {
+                case TypedValue.TYPE_FRACTION:
+                    int type = ((typedValue.data & TypedValue.COMPLEX_UNIT_MASK) == TypedValue.COMPLEX_UNIT_FRACTION_PARENT)
+                            ? RELATIVE_TO_PARENT : RELATIVE_TO_SELF;
+                    return new Value(type, typedValue.getFraction(1f, 1f));
+                case TypedValue.TYPE_DIMENSION:
+                    return new Value(ABSOLUTE, TypedValue.complexToFloat(typedValue.data),
+                            (typedValue.data >> TypedValue.COMPLEX_UNIT_SHIFT) & TypedValue.COMPLEX_UNIT_MASK);
+                case TypedValue.TYPE_FLOAT:
+                    return new Value(ABSOLUTE, typedValue.getFloat());
+                default:
+                    throw new NumberFormatException("Unsupported value type of attribute " + name);
+            }
+        }
+
+        String value = parser.getAttributeValue(ANDROID_NAMESPACE, name);
+        if (value == null) {
+            return new Value(ABSOLUTE, defaultValue);
+        }
+        value = value.trim();
+        if (value.endsWith("%p")) {
+            return new Value(RELATIVE_TO_PARENT, Float.parseFloat(value.substring(0, value.length() - 2)) / 100f);
+        }
+        if (value.endsWith("%")) {
+            return new Value(RELATIVE_TO_SELF, Float.parseFloat(value.substring(0, value.length() - 1)) / 100f);
+        }
+        if (value.endsWith("dip")) {
+            return new Value(ABSOLUTE, Float.parseFloat(value.substring(0, value.length() - 3)), TypedValue.COMPLEX_UNIT_DIP);
+        }
+        if (value.endsWith("dp")) {
+            return new Value(ABSOLUTE, Float.parseFloat(value.substring(0, value.length() - 2)), TypedValue.COMPLEX_UNIT_DIP);
+        }
+        if (value.endsWith("px")) {
+            return new Value(ABSOLUTE, Float.parseFloat(value.substring(0, value.length() - 2)));
+        }
+        return new Value(ABSOLUTE, Float.parseFloat(value));
+    }
+}
@@ -0,0 +1,22 @@
+package ch.temparus.android.dialog.diff;
+
+/**
+ * Compares the items of two lists for {@link ListDiff}.
+ *
+ * Note: Both methods are called on a background thread.
+ *
+ * @author Sandro Lutz
+ */
+public interface DiffCallback<T> {
+
+    /**
+     * @return true if both items represent the same entity, e.g. have the same id
+     */
+    boolean areItemsTheSame(T oldItem, T newItem);
+
+    /**
+     * Called only for items which are the same.
+     * @return true if the displayed content of both items is equal and the item does not need to be rebound
+     */
+    boolean areContentsTheSame(T oldItem, T newItem);
+}
@@ -0,0 +1,341 @@
+package ch.temparus.android.dialog.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Difference between two lists as minimal sequence of insert, remove, move and change updates.
+ *
+ * The edit script is calculated with the O(ND) algorithm of Eugene W. Myers. Removed items which are
+ * inserted again at another position are reported as moves.
+ *
+ * @author Sandro Lutz
+ */
+public final class ListDiff {
+
+    /**
+     * Maximal number of inserted and removed items. Lists with more differences are not diffed.
+     */
+    public static final int MAX_EDIT_DISTANCE = 1000;
+
+    private static final int MATCH = 0;
+    private static final int INSERT = 1;
+    private static final int REMOVE = 2;
+    private static final int NONE = -1;
+
+    // edit script in forward order
+    private final int[] mTypes;
+    private final int[] mOldIndices;
+    private final int[] mNewIndices;
+    private final int mSize;
+    // counterpart of moved items (new index of removed items and old index of inserted items)
+    private final int[] mMovedTo;
+    private final int[] mMovedFrom;
+    // changed content of matched and moved items by new index
+    private final boolean[] mChanged;
+
+    /**
+     * Receiver of the updates of a {@link ListDiff}.
+     */
+    public interface UpdateCallback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    private ListDiff(int[] types, int[] oldIndices, int[] newIndices, int size, int[] movedTo, int[] movedFrom, boolean[] changed) {
+        mTypes = types;
+        mOldIndices = oldIndices;
+        mNewIndices = newIndices;
+        mSize = size;
+        mMovedTo = movedTo;
+        mMovedFrom = movedFrom;
+        mChanged = changed;
+    }
+
+    /**
+     * Calculate the difference between two lists. May take long for large lists and should be called on a background thread.
+     * @return difference or null if the lists differ in more than {@link #MAX_EDIT_DISTANCE} items
+     */
+    public static <T> ListDiff calculate(List<T> oldList, List<T> newList, DiffCallback<T> callback) {
+        final int n = oldList.size();
+        final int m = newList.size();
+        final int maxDistance = Math.min(n + m, MAX_EDIT_DISTANCE);
+
+        // furthest reaching x per diagonal k (index k + d) for every edit distance d
+        List<int[]> trace = new ArrayList<>();
+        int[] previous = null;
+        boolean isFound = false;
+        for (int d = 0; d <= maxDistance && !isFound; d++) {
+            int[] current = new int[2 * d + 1];
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (d == 0) {
+                    x = 0;
+                } else if (k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1])) {
+                    x = previous[k + 1 + d - 1];
+                } else {
+                    x = previous[k - 1 + d - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && y >= 0 && callback.areItemsTheSame(oldList.get(x), newList.get(y))) {
+                    x++;
+                    y++;
+                }
+                current[k + d] = x;
+                if (k == n - m && x >= n) {
+                    isFound = true;
+                }
+            }
+            trace.add(current);
+            previous = current;
+        }
+        if (!isFound) {
+            return null;
+        }
+
+        // walk the trace backwards to build the edit script
+        final int capacity = n + m;
+        int[] types = new int[capacity];
+        int[] oldIndices = new int[capacity];
+        int[] newIndices = new int[capacity];
+        int size = 0;
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int k = x - y;
+            int previousX;
+            int previousY;
+            int previousK;
+            if (d == 0) {
+                previousX = 0;
+                previousY = 0;
+                previousK = 0;
+            } else {
+                int[] v = trace.get(d - 1);
+                previousK = (k == -d || (k != d && v[k - 1 + d - 1] < v[k + 1 + d - 1])) ? k + 1 : k - 1;
+                previousX = v[previousK + d - 1];
+                previousY = previousX - previousK;
+            }
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+                types[size] = MATCH;
+                oldIndices[size] = x;
+                newIndices[size] = y;
+                size++;
+            }
+            if (d > 0) {
+                if (previousK == k + 1) {
+                    types[size] = INSERT;
+                    oldIndices[size] = NONE;
+                    newIndices[size] = previousY;
+                } else {
+                    types[size] = REMOVE;
+                    oldIndices[size] = previousX;
+                    newIndices[size] = NONE;
+                }
+                size++;
+            }
+            x = previousX;
+            y = previousY;
+        }
+        reverse(types, size);
+        reverse(oldIndices, size);
+        reverse(newIndices, size);
+
+        // detect moves and changed contents
+        int[] movedTo = new int[n];
+        int[] movedFrom = new int[m];
+        boolean[] changed = new boolean[m];
+        Arrays.fill(movedTo, NONE);
+        Arrays.fill(movedFrom, NONE);
+        for (int i = 0; i < size; i++) {
+            if (types[i] == MATCH) {
+                changed[newIndices[i]] = !callback.areContentsTheSame(oldList.get(oldIndices[i]), newList.get(newIndices[i]));
+            } else if (types[i] == REMOVE) {
+                T oldItem = oldList.get(oldIndices[i]);
+                for (int j = 0; j < size; j++) {
+                    if (types[j] == INSERT && movedFrom[newIndices[j]] == NONE && callback.areItemsTheSame(oldItem, newList.get(newIndices[j]))) {
+                        movedTo[oldIndices[i]] = newIndices[j];
+                        movedFrom[newIndices[j]] = oldIndices[i];
+                        changed[newIndices[j]] = !callback.areContentsTheSame(oldItem, newList.get(newIndices[j]));
+                        break;
+                    }
+                }
+            }
+        }
+        return new ListDiff(types, oldIndices, newIndices, size, movedTo, movedFrom, changed);
+    }
+
+    private static void reverse(int[] array, int size) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Dispatch the updates which transform the old list into the new list. Positions refer to the list
+     * with all previously dispatched updates applied.
+     */
+    public void dispatchUpdates(UpdateCallback callback) {
+        BatchingCallback batch = new BatchingCallback(callback);
+        // current positions of removed items which are inserted later (by old index)
+        int[] postponedRemovals = new int[mMovedTo.length];
+        // positions before which moved items are inserted as soon as they are removed (by new index)
+        int[] pendingInserts = new int[mMovedFrom.length];
+        Arrays.fill(postponedRemovals, NONE);
+        Arrays.fill(pendingInserts, NONE);
+
+        int position = 0;
+        for (int i = 0; i < mSize; i++) {
+            switch (mTypes[i]) {
+                case MATCH:
+                    if (mChanged[mNewIndices[i]]) {
+                        batch.onChanged(position, 1);
+                    }
+                    position++;
+                    break;
+                case REMOVE: {
+                    int oldIndex = mOldIndices[i];
+                    int newIndex = mMovedTo[oldIndex];
+                    if (newIndex == NONE) {
+                        batch.onRemoved(position, 1);
+                    } else if (pendingInserts[newIndex] != NONE) {
+                        int toPosition = pendingInserts[newIndex];
+                        pendingInserts[newIndex] = NONE;
+                        batch.onMoved(position, toPosition);
+                        for (int j = 0; j < pendingInserts.length; j++) {
+                            if (pendingInserts[j] > toPosition || (pendingInserts[j] == toPosition && j > newIndex)) {
+                                pendingInserts[j]++;
+                            }
+                        }
+                        for (int j = 0; j < postponedRemovals.length; j++) {
+                            if (postponedRemovals[j] >= toPosition) {
+                                postponedRemovals[j]++;
+                            }
+                        }
+                        if (mChanged[newIndex]) {
+                            batch.onChanged(toPosition, 1);
+                        }
+                        position++;
+                    } else {
+                        // keep the item until its new position is reached
+                        postponedRemovals[oldIndex] = position;
+                        position++;
+                    }
+                    break;
+                }
+                case INSERT: {
+                    int newIndex = mNewIndices[i];
+                    int oldIndex = mMovedFrom[newIndex];
+                    if (oldIndex == NONE) {
+                        batch.onInserted(position, 1);
+                        position++;
+                    } else if (postponedRemovals[oldIndex] != NONE) {
+                        int fromPosition = postponedRemovals[oldIndex];
+                        postponedRemovals[oldIndex] = NONE;
+                        batch.onMoved(fromPosition, position - 1);
+                        for (int j = 0; j < postponedRemovals.length; j++) {
+                            if (postponedRemovals[j] > fromPosition) {
+                                postponedRemovals[j]--;
+                            }
+                        }
+                        for (int j = 0; j < pendingInserts.length; j++) {
+                            if (pendingInserts[j] > fromPosition) {
+                                pendingInserts[j]--;
+                            }
+                        }
+                        if (mChanged[newIndex]) {
+                            batch.onChanged(position - 1, 1);
+                        }
+                    } else {
+                        // insert the item as soon as it is removed at its old position
+                        pendingInserts[newIndex] = position;
+                    }
+                    break;
+                }
+            }
+        }
+        batch.flush();
+    }
+
+    /**
+     * Merges consecutive updates of the same type into range updates.
+     */
+    private static final class BatchingCallback implements UpdateCallback {
+        private final UpdateCallback mCallback;
+        private int mType = NONE;
+        private int mPosition;
+        private int mCount;
+
+        BatchingCallback(UpdateCallback callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            if (mType == INSERT && position == mPosition + mCount) {
+                mCount += count;
+                return;
+            }
+            flush();
+            set(INSERT, position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (mType == REMOVE && position == mPosition) {
+                mCount += count;
+                return;
+            }
+            flush();
+            set(REMOVE, position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            flush();
+            mCallback.onMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            if (mType == MATCH && position == mPosition + mCount) {
+                mCount += count;
+                return;
+            }
+            flush();
+            set(MATCH, position, count);
+        }
+
+        private void set(int type, int position, int count) {
+            mType = type;
+            mPosition = position;
+            mCount = count;
+        }
+
+        void flush() {
+            switch (mType) {
+                case INSERT:
+                    mCallback.onInserted(mPosition, mCount);
+                    break;
+                case REMOVE:
+                    mCallback.onRemoved(mPosition, mCount);
+                    break;
+                case MATCH:
+                    mCallback.onChanged(mPosition, mCount);
+                    break;
+            }
+            mType = NONE;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ch.temparus.android.dialog.diff;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import ch.temparus.android.advancedrecyclerview.BaseAdapter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapter for {@link ch.temparus.android.dialog.holder.RecyclerViewHolder} displaying a list which is replaced
+ * by {@link #submitList(List)}.
+ *
+ * The difference between the displayed and the submitted list is calculated on a background thread and
+ * only the inserted, removed, moved and changed items are rebound.
+ *
+ * Note: Submitted lists must not be modified afterwards.
+ *
+ * @author Sandro Lutz
+ */
+public abstract class ListRecyclerAdapter<T, VH extends BaseAdapter.ViewHolder> extends BaseAdapter<VH> {
+
+    private final DiffCallback<T> mDiffCallback;
+    private List<T> mItems = Collections.emptyList();
+    private int mGeneration;
+
+    private final ListDiff.UpdateCallback mUpdateCallback = new ListDiff.UpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(getHeaderCount() + position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(getHeaderCount() + position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(getHeaderCount() + fromPosition, getHeaderCount() + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(getHeaderCount() + position, count);
+        }
+    };
+
+    public ListRecyclerAdapter(Context context, DiffCallback<T> diffCallback) {
+        super(context);
+        if (diffCallback == null) {
+            throw new NullPointerException("DiffCallback must not be null");
+        }
+        mDiffCallback = diffCallback;
+    }
+
+    /**
+     * Bind the item at the given position.
+     */
+    public abstract void onBindContentViewHolder(VH holder, int position, T item, boolean selected);
+
+    /**
+     * @return currently displayed list
+     */
+    @SuppressWarnings("unused")
+    public List<T> getItems() {
+        return mItems;
+    }
+
+    /**
+     * Replace the displayed list. Lists submitted while a previous one is still being diffed replace it.
+     * @param list new list or null to clear the adapter
+     */
+    public void submitList(List<T> list) {
+        final List<T> newList = (list != null) ? list : Collections.<T>emptyList();
+        final List<T> oldList = mItems;
+        final int generation = ++mGeneration;
+        if (newList == oldList) {
+            return;
+        }
+
+        if (oldList.isEmpty() || newList.isEmpty()) {
+            // nothing to diff
+            mItems = newList;
+            if (!oldList.isEmpty()) {
+                notifyItemRangeRemoved(getHeaderCount(), oldList.size());
+            }
+            if (!newList.isEmpty()) {
+                notifyItemRangeInserted(getHeaderCount(), newList.size());
+            }
+            return;
+        }
+
+        new AsyncTask<Void, Void, ListDiff>() {
+            @Override
+            protected ListDiff doInBackground(Void... params) {
+                return ListDiff.calculate(oldList, newList, mDiffCallback);
+            }
+
+            @Override
+            protected void onPostExecute(ListDiff diff) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mItems = newList;
+                if (diff == null) {
+                    notifyDataSetChanged();
+                } else {
+                    diff.dispatchUpdates(mUpdateCallback);
+                }
+            }
+        }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    @Override
+    public void onBindContentViewHolder(VH holder, int position, boolean selected) {
+        onBindContentViewHolder(holder, position, mItems.get(position), selected);
+    }
+
+    @Override
+    public int getContentItemCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public boolean isContentSelectable(int position) {
+        return true;
+    }
+
+    @Override
+    public Object getContentItem(int position) {
+        return mItems.get(position);
+    }
+}
@@ -0,0 +1,16 @@
+package ch.temparus.android.dialog.filter;
+
+/**
+ * Provides the text by which an item is found by {@link ItemFilter}.
+ *
+ * Note: Called on a background thread.
+ *
+ * @author Sandro Lutz
+ */
+public interface FilterTextProvider<T> {
+
+    /**
+     * @return searchable text of the item. Every word of the text can be found by its prefix.
+     */
+    CharSequence getFilterText(T item);
+}
@@ -0,0 +1,79 @@
+package ch.temparus.android.dialog.filter;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapter for {@link ch.temparus.android.dialog.holder.ListViewHolder} displaying the items matching a query,
+ * e.g. entered into a search box in the header of the dialog.
+ *
+ * Filtering is done by an {@link ItemFilter} on a background thread. Item ids are the positions in the
+ * unfiltered list, so the ListView keeps the scroll position and the checked items across queries.
+ *
+ * @author Sandro Lutz
+ */
+public abstract class FilterableListAdapter<T> extends BaseAdapter implements ItemFilter.OnFilterListener<T> {
+
+    private final ItemFilter<T> mFilter;
+    private FilteredList<T> mItems = new FilteredList<>(Collections.<T>emptyList(), null);
+
+    public FilterableListAdapter(FilterTextProvider<T> textProvider) {
+        mFilter = new ItemFilter<>(textProvider, this);
+    }
+
+    /**
+     * Get the view displaying the item at the given position.
+     */
+    public abstract View getView(int position, T item, View convertView, ViewGroup parent);
+
+    /**
+     * Set the unfiltered items. The search index is built on a background thread.
+     */
+    @SuppressWarnings("unused")
+    public void setItems(List<T> items) {
+        mFilter.setItems(items);
+    }
+
+    /**
+     * Display the items matching the given query as soon as they have been found.
+     */
+    @SuppressWarnings("unused")
+    public void filter(CharSequence query) {
+        mFilter.filter(query);
+    }
+
+    @Override
+    public void onFiltered(CharSequence query, FilteredList<T> items) {
+        mItems = items;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mItems.getSourceIndex(position);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return getView(position, mItems.get(position), convertView, parent);
+    }
+}
@@ -0,0 +1,41 @@
+package ch.temparus.android.dialog.filter;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of the items of a list which match a query.
+ *
+ * @author Sandro Lutz
+ */
+public final class FilteredList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<T> mSource;
+    private final int[] mIndices;
+
+    FilteredList(List<T> source, int[] indices) {
+        mSource = source;
+        mIndices = indices;
+    }
+
+    @Override
+    public T get(int location) {
+        return mSource.get(getSourceIndex(location));
+    }
+
+    @Override
+    public int size() {
+        return (mIndices != null) ? mIndices.length : mSource.size();
+    }
+
+    /**
+     * @return position of the item in the unfiltered list
+     */
+    public int getSourceIndex(int location) {
+        if (location < 0 || location >= size()) {
+            throw new IndexOutOfBoundsException("Invalid location " + location + ", size is " + size());
+        }
+        return (mIndices != null) ? mIndices[location] : location;
+    }
+}
@@ -0,0 +1,187 @@
+package ch.temparus.android.dialog.filter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filters a list of items by a query on a background thread.
+ *
+ * A search index of the words of all items is built when the items are set, so queries don't scan the whole list.
+ * Queries refining the previous query (e.g. typing another character) only narrow down the previous result.
+ * Queries and index builds which are superseded before they have finished are cancelled.
+ *
+ * Results are published as {@link FilteredList} on the main thread. To display them with minimal updates,
+ * pass them to {@link ch.temparus.android.dialog.diff.ListRecyclerAdapter#submitList(List)} or use
+ * {@link FilterableListAdapter}.
+ *
+ * Note: All methods have to be called on the main thread. Lists passed to the filter must not be modified afterwards.
+ *
+ * @author Sandro Lutz
+ */
+public class ItemFilter<T> {
+
+    private static Executor sExecutor;
+
+    private final FilterTextProvider<T> mTextProvider;
+    private final OnFilterListener<T> mListener;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mItemsGeneration = new AtomicInteger();
+    private final AtomicInteger mQueryGeneration = new AtomicInteger();
+    private String mQuery = "";
+
+    // accessed on the executor only
+    private List<T> mIndexedItems = Collections.emptyList();
+    private SearchIndex mIndex;
+    private String[] mLastWords;
+    private BitSet mLastResult;
+
+    /**
+     * Interface for receiving the results of an {@link ItemFilter}.
+     */
+    public interface OnFilterListener<T> {
+
+        /**
+         * Called on the main thread with the result of the latest query.
+         * @param query filtered query
+         * @param items items matching the query
+         */
+        void onFiltered(CharSequence query, FilteredList<T> items);
+    }
+
+    public ItemFilter(FilterTextProvider<T> textProvider, OnFilterListener<T> listener) {
+        if (textProvider == null || listener == null) {
+            throw new NullPointerException("FilterTextProvider and OnFilterListener must not be null");
+        }
+        mTextProvider = textProvider;
+        mListener = listener;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor();
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Set the items to filter. Builds the search index and filters the items by the current query.
+     */
+    public void setItems(List<T> items) {
+        final List<T> newItems = (items != null) ? items : Collections.<T>emptyList();
+        final int itemsGeneration = mItemsGeneration.incrementAndGet();
+        final SearchIndex.Cancellation cancellation = new SearchIndex.Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return itemsGeneration != mItemsGeneration.get();
+            }
+        };
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                SearchIndex index = SearchIndex.build(newItems, mTextProvider, cancellation);
+                if (index == null) {
+                    return;
+                }
+                mIndexedItems = newItems;
+                mIndex = index;
+                mLastWords = null;
+                mLastResult = null;
+            }
+        });
+        filter(mQuery);
+    }
+
+    /**
+     * Filter the items by the given query. Items match if every word of the query is the prefix of one of their words.
+     */
+    public void filter(CharSequence query) {
+        final String newQuery = (query != null) ? query.toString() : "";
+        final int queryGeneration = mQueryGeneration.incrementAndGet();
+        final SearchIndex.Cancellation cancellation = new SearchIndex.Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return queryGeneration != mQueryGeneration.get();
+            }
+        };
+        mQuery = newQuery;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (cancellation.isCancelled()) {
+                    return;
+                }
+                final List<T> items = mIndexedItems;
+                final int[] indices = query(SearchIndex.tokenize(newQuery), cancellation);
+                if (cancellation.isCancelled()) {
+                    return;
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!cancellation.isCancelled()) {
+                            mListener.onFiltered(newQuery, new FilteredList<>(items, indices));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return indices of the matching items, null if all items match
+     */
+    private int[] query(String[] words, SearchIndex.Cancellation cancellation) {
+        if (words.length == 0 || mIndex == null) {
+            mLastWords = null;
+            mLastResult = null;
+            return (mIndex == null) ? new int[0] : null;
+        }
+
+        final boolean isRefinement = isRefinement(words);
+        final BitSet result;
+        if (isRefinement) {
+            result = (BitSet) mLastResult.clone();
+        } else {
+            result = new BitSet(mIndex.getItemCount());
+            result.set(0, mIndex.getItemCount());
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (isRefinement && i < mLastWords.length && words[i].equals(mLastWords[i])) {
+                continue;
+            }
+            if (!mIndex.find(words[i], result, cancellation)) {
+                return null;
+            }
+        }
+        mLastWords = words;
+        mLastResult = result;
+
+        int[] indices = new int[result.cardinality()];
+        for (int i = 0, index = result.nextSetBit(0); index >= 0; i++, index = result.nextSetBit(index + 1)) {
+            indices[i] = index;
+        }
+        return indices;
+    }
+
+    /**
+     * @return true if the previous result contains all results of the given query
+     */
+    private boolean isRefinement(String[] words) {
+        if (mLastWords == null || mLastWords.length > words.length) {
+            return false;
+        }
+        for (int i = 0; i < mLastWords.length; i++) {
+            if (!words[i].startsWith(mLastWords[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
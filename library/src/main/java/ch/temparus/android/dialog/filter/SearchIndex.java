@@ -0,0 +1,137 @@
+package ch.temparus.android.dialog.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Index of the words of a list of items, which finds the items containing words starting with a given prefix.
+ *
+ * Building the index takes O(n log n) and should be done on a background thread. A lookup takes
+ * O(log n + number of matching words).
+ *
+ * @author Sandro Lutz
+ */
+final class SearchIndex {
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    private final int mItemCount;
+    private final String[] mWords; // sorted
+    private final int[] mItems; // item index of each word
+
+    /**
+     * Check whether a running operation is no longer needed.
+     */
+    interface Cancellation {
+        boolean isCancelled();
+    }
+
+    private static final class Entry {
+        final String word;
+        final int item;
+
+        Entry(String word, int item) {
+            this.word = word;
+            this.item = item;
+        }
+    }
+
+    private SearchIndex(int itemCount, String[] words, int[] items) {
+        mItemCount = itemCount;
+        mWords = words;
+        mItems = items;
+    }
+
+    /**
+     * @return index of the given items or null if cancelled
+     */
+    static <T> SearchIndex build(List<T> items, FilterTextProvider<T> textProvider, Cancellation cancellation) {
+        final List<Entry> entries = new ArrayList<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && cancellation.isCancelled()) {
+                return null;
+            }
+            CharSequence text = textProvider.getFilterText(items.get(i));
+            if (text == null) {
+                continue;
+            }
+            for (String word : tokenize(text)) {
+                entries.add(new Entry(word, i));
+            }
+        }
+
+        Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+        Arrays.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry lhs, Entry rhs) {
+                return lhs.word.compareTo(rhs.word);
+            }
+        });
+        if (cancellation.isCancelled()) {
+            return null;
+        }
+
+        String[] words = new String[sorted.length];
+        int[] itemIndices = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            words[i] = sorted[i].word;
+            itemIndices[i] = sorted[i].item;
+        }
+        return new SearchIndex(items.size(), words, itemIndices);
+    }
+
+    /**
+     * Split a text into lower case words
+     */
+    static String[] tokenize(CharSequence text) {
+        final String lowerCase = text.toString().toLowerCase(Locale.getDefault());
+        final List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean isWordCharacter = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (isWordCharacter && start == -1) {
+                start = i;
+            } else if (!isWordCharacter && start != -1) {
+                words.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[words.size()]);
+    }
+
+    int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * Find the items containing a word starting with the given prefix.
+     * @param prefix lower case prefix
+     * @param items set to the matching items. Items not contained in the set are skipped.
+     * @return false if cancelled
+     */
+    boolean find(String prefix, BitSet items, Cancellation cancellation) {
+        final BitSet matches = new BitSet(mItemCount);
+        int low = 0;
+        int high = mWords.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mWords[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < mWords.length && mWords[i].startsWith(prefix); i++) {
+            if ((i - low) % CANCELLATION_CHECK_INTERVAL == 0 && cancellation.isCancelled()) {
+                return false;
+            }
+            matches.set(mItems[i]);
+        }
+        items.and(matches);
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package ch.temparus.android.dialog.holder;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.annotation.LayoutRes;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import ch.temparus.android.dialog.R;
+
+/**
+ * Part of the custom layout of a {@link ViewHolder} which is inflated as soon as it is about to scroll into view
+ * or the dialog is expanded.
+ *
+ * Until then, the section takes up the space of its minimal height, which should be set to the estimated height
+ * of the inflated layout:
+ * <pre>
+ * &lt;ch.temparus.android.dialog.holder.DeferredSection
+ *         android:layout_width="match_parent"
+ *         android:layout_height="wrap_content"
+ *         android:minHeight="320dp"
+ *         app:sectionLayout="@layout/section_details"/&gt;
+ * </pre>
+ *
+ * @author Sandro Lutz
+ */
+public class DeferredSection extends FrameLayout {
+
+    private static final int INVALID = -1;
+
+    private int mLayoutResourceId = INVALID;
+    private View mInflatedView;
+    private OnInflateListener mOnInflateListener;
+
+    /**
+     * Interface for listening to the inflation of a {@link DeferredSection}, e.g. to bind its views.
+     */
+    public interface OnInflateListener {
+
+        /**
+         * Called on the main thread after the layout of the section has been inflated.
+         * @param section inflated section
+         * @param inflatedView root view of the inflated layout
+         */
+        void onInflate(DeferredSection section, View inflatedView);
+    }
+
+    public DeferredSection(Context context) {
+        super(context);
+    }
+
+    public DeferredSection(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public DeferredSection(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.DeferredSection, defStyleAttr, 0);
+        mLayoutResourceId = a.getResourceId(R.styleable.DeferredSection_sectionLayout, INVALID);
+        a.recycle();
+    }
+
+    @SuppressWarnings("unused")
+    public void setLayoutResource(@LayoutRes int layoutResourceId) {
+        mLayoutResourceId = layoutResourceId;
+    }
+
+    @SuppressWarnings("unused")
+    public void setOnInflateListener(OnInflateListener listener) {
+        mOnInflateListener = listener;
+    }
+
+    public boolean isInflated() {
+        return mInflatedView != null;
+    }
+
+    /**
+     * @return root view of the inflated layout or null if the section has not been inflated yet
+     */
+    @SuppressWarnings("unused")
+    public View getInflatedView() {
+        return mInflatedView;
+    }
+
+    /**
+     * Inflate the layout of the section if it has not been inflated yet.
+     * @return root view of the inflated layout
+     */
+    public View inflate() {
+        if (mInflatedView != null) {
+            return mInflatedView;
+        }
+        if (mLayoutResourceId == INVALID) {
+            throw new IllegalStateException("DeferredSection must have a valid layout resource");
+        }
+        mInflatedView = LayoutInflater.from(getContext()).inflate(mLayoutResourceId, this, false);
+        addView(mInflatedView);
+        setMinimumHeight(0);
+        if (mOnInflateListener != null) {
+            mOnInflateListener.onInflate(this, mInflatedView);
+        }
+        return mInflatedView;
+    }
+}
@@ -27,6 +27,8 @@ public interface Holder {
 
     /**
      * Set background color of the dialog. Called by {@link ch.temparus.android.dialog.DialogLayout}
+     * The color should be applied to the root of the view returned by {@link #getView(LayoutInflater, ViewGroup)} only,
+     * the dialog does not dim the area of this view.
      * @param resId Color resource
      */
     void setBackgroundColor(@ColorRes int resId);
@@ -7,6 +7,7 @@ import ch.temparus.android.dialog.Dialog;
 import ch.temparus.android.dialog.R;
 import ch.temparus.android.dialog.listeners.OnHolderListener;
 import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+import ch.temparus.android.dialog.paging.PagingListAdapter;
 
 /**
  * RecyclerViewHolder holds a {@link ListView} as the content view of the {@link ch.temparus.android.dialog.Dialog}.
@@ -14,7 +15,7 @@ import ch.temparus.android.dialog.listeners.OnStateChangeListener;
  * @see ListView
  * @author Sandro Lutz
  */
-public class ListViewHolder implements HolderAdapter<BaseAdapter>, AdapterView.OnItemClickListener {
+public class ListViewHolder implements HolderAdapter<BaseAdapter>, RecyclableHolder, AdapterView.OnItemClickListener {
 
     private ViewGroup mHeaderContainer;
     private ViewGroup mFooterContainer;
@@ -67,11 +68,16 @@ public class ListViewHolder implements HolderAdapter<BaseAdapter>, AdapterView.O
 
     @Override
     public View getView(LayoutInflater inflater, ViewGroup parent) {
-        int backgroundColor = parent.getResources().getColor(mBackgroundColorResource);
         View view = inflater.inflate(R.layout.holder_list_view, parent, false);
         view.setId(R.id.dialog_content_view);
+        bindView(view);
+        return view;
+    }
+
+    @Override
+    public void bindView(View view) {
+        view.setBackgroundColor(view.getResources().getColor(mBackgroundColorResource));
         mListView = (ListView) view.findViewById(R.id.list);
-        mListView.setBackgroundColor(backgroundColor);
         mListView.setAdapter(mAdapter);
         mListView.setOnItemClickListener(this);
         mListView.setOnScrollListener(new AbsListView.OnScrollListener() {
@@ -99,10 +105,7 @@ public class ListViewHolder implements HolderAdapter<BaseAdapter>, AdapterView.O
         });
         mListView.scrollTo(0, 0);
         mHeaderContainer = (FrameLayout) view.findViewById(R.id.header_container);
-        mHeaderContainer.setBackgroundColor(backgroundColor);
         mFooterContainer = (FrameLayout) view.findViewById(R.id.footer_container);
-        mFooterContainer.setBackgroundColor(backgroundColor);
-        return view;
     }
 
     @Override
@@ -132,13 +135,34 @@ public class ListViewHolder implements HolderAdapter<BaseAdapter>, AdapterView.O
             public void onStateChanged(Dialog dialog, Dialog.State state) {
                 mState = state;
                 mLastStateChange = System.currentTimeMillis();
-                if (state == Dialog.State.COLLAPSED) {
+                // a drag which settles back into the collapsed state leaves the content at the top
+                if (state == Dialog.State.COLLAPSED && dialog.getPreviousStableState() != Dialog.State.COLLAPSED) {
                     mListView.smoothScrollToPosition(0);
                 }
+                if (state != Dialog.State.SETTLING) {
+                    prefetch();
+                }
             }
         };
     }
 
+    /**
+     * Load the pages of a {@link PagingListAdapter} for the rows following the laid out rows,
+     * so they are not displayed as placeholders when the expanded dialog is scrolled.
+     *
+     * Note: Unlike the RecycledViewPool of a RecyclerView, the recycler of a ListView can't be filled up front.
+     */
+    private void prefetch() {
+        if (mListView == null || !(mAdapter instanceof PagingListAdapter) || mListView.getChildCount() == 0) {
+            return;
+        }
+        final int position = mListView.getLastVisiblePosition() + mListView.getChildCount() - mListView.getHeaderViewsCount();
+        final int count = mAdapter.getCount();
+        if (count > 0) {
+            ((PagingListAdapter) mAdapter).getPagedList().loadAround(Math.min(position, count - 1));
+        }
+    }
+
     @Override
     public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
         if (System.currentTimeMillis() - mLastStateChange > 20) {
@@ -0,0 +1,23 @@
+package ch.temparus.android.dialog.holder;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Interface for {@link Holder} which can take over the content view of a dismissed dialog.
+ * Pooled dialog layouts are reused by holders of the same class without inflating their content view again.
+ *
+ * @see ch.temparus.android.dialog.DialogPool
+ * @author Sandro Lutz
+ */
+public interface RecyclableHolder extends Holder {
+
+    /**
+     * Bind this holder to a view returned by {@link #getView(LayoutInflater, ViewGroup)} of another holder
+     * of the same class. The header and footer containers of the view are empty when this method is called.
+     * Called by {@link ch.temparus.android.dialog.DialogLayout} instead of {@link #getView(LayoutInflater, ViewGroup)}
+     * @param view content view of a dismissed dialog
+     */
+    void bindView(View view);
+}
@@ -1,17 +1,29 @@
 package ch.temparus.android.dialog.holder;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.ColorRes;
 import android.support.v4.view.GestureDetectorCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
 import android.view.*;
 import android.widget.FrameLayout;
 import ch.temparus.android.advancedrecyclerview.AdvancedRecyclerView;
 import ch.temparus.android.advancedrecyclerview.BaseAdapter;
 import ch.temparus.android.dialog.Dialog;
 import ch.temparus.android.dialog.R;
+import ch.temparus.android.dialog.diff.ListRecyclerAdapter;
 import ch.temparus.android.dialog.listeners.OnHolderListener;
 import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+import ch.temparus.android.dialog.paging.PagingRecyclerAdapter;
+import ch.temparus.android.dialog.section.SectionIndex;
+import ch.temparus.android.dialog.section.SectionIndexBar;
+import ch.temparus.android.dialog.section.SectionProvider;
+
+import java.util.List;
 
 /**
  * RecyclerViewHolder holds a {@link AdvancedRecyclerView} as the content view of the {@link ch.temparus.android.dialog.Dialog}.
@@ -19,12 +31,15 @@ import ch.temparus.android.dialog.listeners.OnStateChangeListener;
  * @see AdvancedRecyclerView
  * @author Sandro Lutz
  */
-public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
+public class RecyclerViewHolder implements HolderAdapter<BaseAdapter>, RecyclableHolder {
+
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
 
     private ViewGroup mHeaderContainer;
     private ViewGroup mFooterContainer;
     private AdvancedRecyclerView mRecyclerView;
     private RecyclerView.LayoutManager mLayoutManager;
+    private RecyclerView.RecycledViewPool mRecycledViewPool;
     private BaseAdapter mAdapter;
     private OnHolderListener mHolderListener;
     private View.OnKeyListener mKeyListener;
@@ -32,6 +47,102 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
     private long mLastStateChange;
     private int mBackgroundColorResource;
     private boolean mIsInterceptTouchEventDisallowed = false;
+    private int mPrecreatePosition;
+    private int mPrecreateEnd;
+    private final SparseIntArray mPrecreateCounts = new SparseIntArray();
+    private SectionIndex mSectionIndex;
+    private SectionIndexBar mSectionIndexBar;
+    private boolean mIsSectionIndexBarEnabled;
+    private GestureDetectorCompat mGestureDetector;
+
+    private final RecyclerView.AdapterDataObserver mSectionObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            rebuildSectionIndex();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            updateSectionIndex(positionStart, itemCount, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            updateSectionIndex(positionStart, 0, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            updateSectionIndex(positionStart, itemCount, 0);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            rebuildSectionIndex();
+        }
+    };
+
+    private final RecyclerView.OnItemTouchListener mItemTouchListener = new RecyclerView.OnItemTouchListener() {
+        @Override
+        public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent motionEvent) {
+            mGestureDetector.onTouchEvent(motionEvent);
+            return false;
+        }
+
+        @Override
+        public void onTouchEvent(RecyclerView rv, MotionEvent motionEvent) {
+            mGestureDetector.onTouchEvent(motionEvent);
+        }
+
+        @Override
+        public void onRequestDisallowInterceptTouchEvent(boolean b) {
+
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            // works with any LayoutManager, e.g. after jumping to a section
+            boolean isScrolled = ViewCompat.canScrollVertically(recyclerView, -1);
+            if (mLayoutManager instanceof LinearLayoutManager) {
+                int topPosition = ((LinearLayoutManager) mLayoutManager).findFirstVisibleItemPosition();
+                View topView = (topPosition == 0) ? mLayoutManager.findViewByPosition(topPosition) : null;
+                int top = (topView != null) ? topView.getTop() : -5;
+
+                // scrolls the RecyclerView to the most top position, if it has not exactly scrolled to the top.
+                if (dy < 0 && top > -5) {
+                    recyclerView.scrollToPosition(0);
+                    isScrolled = false;
+                }
+            }
+
+            mIsInterceptTouchEventDisallowed = (isScrolled && mState == Dialog.State.EXPANDED);
+        }
+    };
+
+    private final View.OnAttachStateChangeListener mAttachStateChangeListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View view) {
+            if (mRecyclerView.getAdapter() == null) {
+                mRecyclerView.swapAdapter(mAdapter, false);
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View view) {
+            // return the item views of the dismissed dialog to the pool
+            mRecyclerView.swapAdapter(null, true);
+        }
+    };
+
+    private final MessageQueue.IdleHandler mPrecreateIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // create one item view per idle pass, so input and frames are not delayed
+            return precreateNext();
+        }
+    };
 
     @SuppressWarnings("unused")
     public RecyclerViewHolder() {
@@ -77,12 +188,164 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
         mLayoutManager = layoutManager;
     }
 
+    /**
+     * Set RecycledViewPool for the RecyclerView. Item views are returned to the pool when the dialog is dismissed
+     * and reused by the next dialog using the same item view types. The number of kept views can be adjusted
+     * per view type with {@link RecyclerView.RecycledViewPool#setMaxRecycledViews(int, int)}.
+     * At most five item views per view type, the default size of a pool, are created ahead of the scrolling rows.
+     *
+     * Note: The pool is owned by the app. Pooled views keep a reference to the context which inflated them,
+     *       so share a pool only among the dialogs of one activity and clear it when the activity is destroyed.
+     *       View types have to be unique across all adapters using the pool.
+     *
+     * @param recycledViewPool pool shared by the dialogs of an activity, or null to use a pool per RecyclerView
+     */
+    @SuppressWarnings("unused")
+    public void setRecycledViewPool(RecyclerView.RecycledViewPool recycledViewPool) {
+        if (mRecyclerView != null) {
+            throw new IllegalStateException("RecycledViewPool must be set before the dialog is created");
+        }
+        mRecycledViewPool = recycledViewPool;
+    }
+
     @Override
     public void setAdapter(BaseAdapter adapter) {
+        mPrecreatePosition = mPrecreateEnd = 0;
+        mPrecreateCounts.clear();
+        if (mSectionIndex != null && mAdapter != null) {
+            mAdapter.unregisterAdapterDataObserver(mSectionObserver);
+        }
         if (mRecyclerView != null) {
-            mRecyclerView.setAdapter(adapter);
+            if (mRecycledViewPool != null) {
+                // setAdapter() would clear the pool if no other RecyclerView is attached to it
+                mRecyclerView.swapAdapter(adapter, true);
+            } else {
+                mRecyclerView.setAdapter(adapter);
+            }
         }
         mAdapter = adapter;
+        if (mSectionIndex != null && mAdapter != null) {
+            mAdapter.registerAdapterDataObserver(mSectionObserver);
+            rebuildSectionIndex();
+        }
+    }
+
+    /**
+     * Divide the content into sections, which can be jumped to with {@link #scrollToSection(int)}.
+     *
+     * The start positions of the sections are computed once and updated incrementally on data changes.
+     *
+     * @param provider provider of the section of each item or null to remove the sections
+     */
+    @SuppressWarnings("unused")
+    public void setSectionProvider(SectionProvider provider) {
+        if (mSectionIndex != null && mAdapter != null) {
+            mAdapter.unregisterAdapterDataObserver(mSectionObserver);
+        }
+        mSectionIndex = (provider != null) ? new SectionIndex(provider) : null;
+        if (mSectionIndex != null && mAdapter != null) {
+            mAdapter.registerAdapterDataObserver(mSectionObserver);
+            rebuildSectionIndex();
+        }
+        updateSectionIndexBar();
+    }
+
+    /**
+     * Show a bar of the section titles along the list, which jumps to the touched section.
+     * Requires a {@link SectionProvider}.
+     */
+    @SuppressWarnings("unused")
+    public void setSectionIndexBarEnabled(boolean enabled) {
+        mIsSectionIndexBarEnabled = enabled;
+        updateSectionIndexBar();
+    }
+
+    /**
+     * @return section index of the content or null if no {@link SectionProvider} is set
+     */
+    @SuppressWarnings("unused")
+    public SectionIndex getSectionIndex() {
+        return mSectionIndex;
+    }
+
+    /**
+     * Jump to the first item of the given section.
+     * @param section index of the section
+     */
+    public void scrollToSection(int section) {
+        if (mSectionIndex != null) {
+            scrollToContentPosition(mSectionIndex.getPositionForSection(section));
+        }
+    }
+
+    /**
+     * Jump to the item at the given fraction of the content, e.g. for a fast scroll thumb.
+     * @param fraction value between 0 (first item) and 1 (last item)
+     */
+    @SuppressWarnings("unused")
+    public void seekTo(float fraction) {
+        if (mAdapter != null && mAdapter.getContentItemCount() > 0) {
+            float clampedFraction = Math.max(0f, Math.min(fraction, 1f));
+            scrollToContentPosition(Math.round(clampedFraction * (mAdapter.getContentItemCount() - 1)));
+        }
+    }
+
+    /**
+     * Jump to the item at the given content position without laying out the items in between.
+     */
+    public void scrollToContentPosition(int position) {
+        if (mRecyclerView == null || mAdapter == null) {
+            return;
+        }
+        int adapterPosition = mAdapter.getHeaderCount() + position;
+        if (mLayoutManager instanceof LinearLayoutManager) {
+            // aligns the item to the top instead of scrolling it just into view
+            ((LinearLayoutManager) mLayoutManager).scrollToPositionWithOffset(adapterPosition, 0);
+        } else {
+            mRecyclerView.scrollToPosition(adapterPosition);
+        }
+    }
+
+    private void rebuildSectionIndex() {
+        mSectionIndex.rebuild(mAdapter.getContentItemCount());
+        updateSectionIndexBar();
+    }
+
+    private void updateSectionIndex(int positionStart, int removedCount, int insertedCount) {
+        int itemCount = mSectionIndex.getItemCount();
+        int count = mSectionIndex.getSectionCount();
+        mSectionIndex.updateAdapterRange(mAdapter.getHeaderCount(), mAdapter.getContentItemCount(), positionStart, removedCount, insertedCount);
+        if (count != mSectionIndex.getSectionCount() || itemCount != mSectionIndex.getItemCount()) {
+            updateSectionIndexBar();
+        }
+    }
+
+    private void updateSectionIndexBar() {
+        if (mSectionIndexBar == null) {
+            return;
+        }
+        if (mIsSectionIndexBarEnabled && mSectionIndex != null) {
+            mSectionIndexBar.setSections(mSectionIndex.getSections());
+            mSectionIndexBar.setVisibility(View.VISIBLE);
+        } else {
+            mSectionIndexBar.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Replace the displayed list. Only the differences to the displayed list are rebound.
+     *
+     * Note: Requires a {@link ListRecyclerAdapter} set as adapter.
+     *
+     * @param list new list or null to clear the content
+     * @see ListRecyclerAdapter#submitList(List)
+     */
+    @SuppressWarnings({"unused", "unchecked"})
+    public <T> void submitList(List<T> list) {
+        if (!(mAdapter instanceof ListRecyclerAdapter)) {
+            throw new IllegalStateException("submitList requires a ListRecyclerAdapter");
+        }
+        ((ListRecyclerAdapter<T, ?>) mAdapter).submitList(list);
     }
 
     @Override
@@ -92,15 +355,41 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
 
     @Override
     public View getView(LayoutInflater inflater, ViewGroup parent) {
-        int backgroundColor = parent.getResources().getColor(mBackgroundColorResource);
         View view = inflater.inflate(R.layout.holder_recycler_view, parent, false);
         view.setId(R.id.dialog_content_view);
+        bindView(view);
+        return view;
+    }
+
+    @Override
+    public void bindView(View view) {
+        Object previousHolder = view.getTag(R.id.dialog_holder);
+        if (previousHolder instanceof RecyclerViewHolder) {
+            ((RecyclerViewHolder) previousHolder).unbindView(view);
+        }
+        view.setTag(R.id.dialog_holder, this);
+        view.setBackgroundColor(view.getResources().getColor(mBackgroundColorResource));
         mRecyclerView = (AdvancedRecyclerView) view.findViewById(R.id.recycler_view);
-        mRecyclerView.setBackgroundColor(backgroundColor);
-        mRecyclerView.setAdapter(mAdapter);
+        if (mRecycledViewPool != null) {
+            mRecyclerView.setRecycledViewPool(mRecycledViewPool);
+            // setAdapter() would clear the pool if no other RecyclerView is attached to it
+            mRecyclerView.swapAdapter(mAdapter, false);
+            mRecyclerView.addOnAttachStateChangeListener(mAttachStateChangeListener);
+        } else {
+            mRecyclerView.setAdapter(mAdapter);
+        }
         mRecyclerView.setLayoutManager(mLayoutManager);
+        mSectionIndexBar = (SectionIndexBar) view.findViewById(R.id.section_index_bar);
+        mSectionIndexBar.setOnSectionSelectedListener(new SectionIndexBar.OnSectionSelectedListener() {
+            @Override
+            public void onSectionSelected(int section) {
+                scrollToSection(section);
+            }
+        });
+        updateSectionIndexBar();
 
-        final GestureDetectorCompat gestureDetector = new GestureDetectorCompat(mRecyclerView.getContext(), new GestureDetector.SimpleOnGestureListener() {
+        // the handler of the main thread allows the view to be created on a background thread
+        mGestureDetector = new GestureDetectorCompat(mRecyclerView.getContext(), new GestureDetector.SimpleOnGestureListener() {
             @Override
             public boolean onSingleTapUp(MotionEvent e) {
                 if (System.currentTimeMillis() - mLastStateChange > 20) {
@@ -115,42 +404,9 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
                 }
                 return super.onSingleTapUp(e);
             }
-        });
-        mRecyclerView.addOnItemTouchListener(new RecyclerView.OnItemTouchListener() {
-            @Override
-            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent motionEvent) {
-                gestureDetector.onTouchEvent(motionEvent);
-                return false;
-            }
-
-            @Override
-            public void onTouchEvent(RecyclerView rv, MotionEvent motionEvent) {
-                gestureDetector.onTouchEvent(motionEvent);
-            }
-
-            @Override
-            public void onRequestDisallowInterceptTouchEvent(boolean b) {
-
-            }
-        });
-        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                int top = 0;
-                if (mLayoutManager instanceof LinearLayoutManager) {
-                    int topPosition = ((LinearLayoutManager) mLayoutManager).findFirstVisibleItemPosition();
-                    top = topPosition == 0 ? mLayoutManager.findViewByPosition(topPosition).getTop() : -5;
-                }
-
-                // scrolls the RecyclerView to the most top position, if it has not exactly scrolled to the top.
-                if (dy < 0 && top > -5) {
-                    recyclerView.scrollToPosition(0);
-                    top = 0;
-                }
-
-                mIsInterceptTouchEventDisallowed = (top < 0 && mState == Dialog.State.EXPANDED);
-            }
-        });
+        }, new Handler(Looper.getMainLooper()));
+        mRecyclerView.addOnItemTouchListener(mItemTouchListener);
+        mRecyclerView.addOnScrollListener(mScrollListener);
         mRecyclerView.setOnKeyListener(new View.OnKeyListener() {
             @Override
             public boolean onKey(View v, int keyCode, KeyEvent event) {
@@ -161,7 +417,6 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
             }
         });
         mHeaderContainer = (FrameLayout) view.findViewById(R.id.header_container);
-        mHeaderContainer.setBackgroundColor(backgroundColor);
         mHeaderContainer.setOnTouchListener(new View.OnTouchListener() {
             @Override
             public boolean onTouch(View view, MotionEvent motionEvent) {
@@ -169,14 +424,31 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
             }
         });
         mFooterContainer = (FrameLayout) view.findViewById(R.id.footer_container);
-        mFooterContainer.setBackgroundColor(backgroundColor);
         mFooterContainer.setOnTouchListener(new View.OnTouchListener() {
             @Override
             public boolean onTouch(View view, MotionEvent motionEvent) {
                 return true;
             }
         });
-        return view;
+    }
+
+    /**
+     * Remove the listeners of this holder from a view which has been taken over by another holder
+     * of a recycled dialog.
+     */
+    private void unbindView(View view) {
+        RecyclerView recyclerView = (RecyclerView) view.findViewById(R.id.recycler_view);
+        recyclerView.removeOnItemTouchListener(mItemTouchListener);
+        recyclerView.removeOnScrollListener(mScrollListener);
+        recyclerView.removeOnAttachStateChangeListener(mAttachStateChangeListener);
+        if (mRecycledViewPool != null) {
+            recyclerView.setRecycledViewPool(null);
+        }
+        if (recyclerView == mRecyclerView) {
+            Looper.myQueue().removeIdleHandler(mPrecreateIdleHandler);
+            mRecyclerView = null;
+            mSectionIndexBar = null;
+        }
     }
 
     @Override
@@ -206,10 +478,71 @@ public class RecyclerViewHolder implements HolderAdapter<BaseAdapter> {
             public void onStateChanged(Dialog dialog, Dialog.State state) {
                 mState = state;
                 mLastStateChange = System.currentTimeMillis();
-                if (state == Dialog.State.COLLAPSED) {
+                // a drag which settles back into the collapsed state leaves the content at the top
+                if (state == Dialog.State.COLLAPSED && dialog.getPreviousStableState() != Dialog.State.COLLAPSED) {
                     mRecyclerView.scrollToPosition(0);
                 }
+                if (state != Dialog.State.SETTLING) {
+                    schedulePrecreate();
+                }
             }
         };
     }
+
+    /**
+     * Create the item views of the rows following the laid out rows during idle time, so scrolling the expanded
+     * dialog does not inflate rows on the frame revealing them. The pages of a {@link PagingRecyclerAdapter}
+     * are loaded for the same rows.
+     *
+     * Note: The views are only created, not bound. The RecycledViewPool resets every view holder put into it,
+     *       so the RecyclerView binds the rows when they are revealed.
+     */
+    private void schedulePrecreate() {
+        if (mRecyclerView == null || mAdapter == null || mRecyclerView.getChildCount() == 0) {
+            return;
+        }
+        final int childCount = mRecyclerView.getChildCount();
+        final int lastPosition = mRecyclerView.getChildAdapterPosition(mRecyclerView.getChildAt(childCount - 1));
+        if (lastPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        // header and footer rows are bound to their views and must not be created twice
+        final int contentEnd = mAdapter.getHeaderCount() + mAdapter.getContentItemCount();
+        final int end = Math.min(contentEnd, lastPosition + 1 + childCount);
+        if (mAdapter instanceof PagingRecyclerAdapter) {
+            ((PagingRecyclerAdapter) mAdapter).getPagedList().loadAround(end - 1 - mAdapter.getHeaderCount());
+        }
+        if (end <= mPrecreateEnd) {
+            return; // already created
+        }
+        mPrecreatePosition = Math.max(Math.max(mPrecreateEnd, lastPosition + 1), mAdapter.getHeaderCount());
+        mPrecreateEnd = end;
+        Looper.myQueue().removeIdleHandler(mPrecreateIdleHandler);
+        Looper.myQueue().addIdleHandler(mPrecreateIdleHandler);
+    }
+
+    /**
+     * Create the view holder of the next row and put it into the RecycledViewPool
+     * @return true if there are more rows to create
+     */
+    @SuppressWarnings("unchecked")
+    private boolean precreateNext() {
+        if (mRecyclerView == null || mAdapter == null || mRecyclerView.getWindowToken() == null
+                || mPrecreatePosition >= Math.min(mPrecreateEnd, mAdapter.getHeaderCount() + mAdapter.getContentItemCount())) {
+            return false;
+        }
+        final int viewType = mAdapter.getItemViewType(mPrecreatePosition++);
+        final RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        final int count = mPrecreateCounts.get(viewType) + 1;
+        if (mRecycledViewPool == null) {
+            // make room in the own pool
+            pool.setMaxRecycledViews(viewType, Math.max(DEFAULT_MAX_RECYCLED_VIEWS, count));
+        } else if (count > DEFAULT_MAX_RECYCLED_VIEWS) {
+            // shared pools are sized by the app and drop the views exceeding their size, which cannot be queried
+            return mPrecreatePosition < mPrecreateEnd;
+        }
+        mPrecreateCounts.put(viewType, count);
+        pool.putRecycledView(mAdapter.createViewHolder(mRecyclerView, viewType));
+        return mPrecreatePosition < mPrecreateEnd;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package ch.temparus.android.dialog.holder;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import ch.temparus.android.dialog.R;
+
+/**
+ * Root layout of the holder templates which stacks the header container, the content and the footer container.
+ *
+ * The header container (id header_container) is placed at the top and the footer container (id footer_container)
+ * at the bottom. The first other child is the content which gets the remaining height. Further children are
+ * overlays of the content, which are placed within the bounds of the content depending on their layout_gravity.
+ * Unlike a RelativeLayout, every child is measured exactly once per measure pass.
+ * SheetLayout is used internally by the holders
+ *
+ * @author Sandro Lutz
+ */
+public class SheetLayout extends ViewGroup {
+
+    public SheetLayout(Context context) {
+        super(context);
+    }
+
+    public SheetLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public SheetLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int count = getChildCount();
+        View header = null;
+        View footer = null;
+        View content = null;
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            if (child.getId() == R.id.header_container) {
+                header = child;
+            } else if (child.getId() == R.id.footer_container) {
+                footer = child;
+            } else if (content == null) {
+                content = child;
+            }
+        }
+
+        int usedHeight = 0;
+        int maxWidth = 0;
+        if (header != null) {
+            measureChildWithMargins(header, widthMeasureSpec, 0, heightMeasureSpec, usedHeight);
+            usedHeight += getMeasuredHeightWithMargins(header);
+            maxWidth = Math.max(maxWidth, getMeasuredWidthWithMargins(header));
+        }
+        if (footer != null) {
+            measureChildWithMargins(footer, widthMeasureSpec, 0, heightMeasureSpec, usedHeight);
+            usedHeight += getMeasuredHeightWithMargins(footer);
+            maxWidth = Math.max(maxWidth, getMeasuredWidthWithMargins(footer));
+        }
+        int contentHeight = 0;
+        if (content != null) {
+            measureChildWithMargins(content, widthMeasureSpec, 0, heightMeasureSpec, usedHeight);
+            contentHeight = content.getMeasuredHeight();
+            usedHeight += getMeasuredHeightWithMargins(content);
+            maxWidth = Math.max(maxWidth, getMeasuredWidthWithMargins(content));
+        }
+
+        // overlays match the height of the content
+        final int overlayHeightMeasureSpec = MeasureSpec.makeMeasureSpec(contentHeight, MeasureSpec.EXACTLY);
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE || child == header || child == footer || child == content) {
+                continue;
+            }
+            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            child.measure(getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin, lp.width),
+                    getChildMeasureSpec(overlayHeightMeasureSpec, lp.topMargin + lp.bottomMargin, lp.height));
+        }
+
+        final int width = Math.max(maxWidth + getPaddingLeft() + getPaddingRight(), getSuggestedMinimumWidth());
+        final int height = Math.max(usedHeight + getPaddingTop() + getPaddingBottom(), getSuggestedMinimumHeight());
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final int parentLeft = getPaddingLeft();
+        final int parentRight = r - l - getPaddingRight();
+        int top = getPaddingTop();
+        int bottom = b - t - getPaddingBottom();
+        int contentTop = top;
+        int contentBottom = top;
+        View content = null;
+
+        // the footer is laid out first as the content ends where the footer begins
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE && child.getId() == R.id.footer_container) {
+                LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                int childBottom = bottom - lp.bottomMargin;
+                layoutChild(child, parentLeft, parentRight, childBottom - child.getMeasuredHeight());
+                bottom = childBottom - child.getMeasuredHeight() - lp.topMargin;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE || child.getId() == R.id.footer_container) {
+                continue;
+            }
+            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (child.getId() == R.id.header_container) {
+                layoutChild(child, parentLeft, parentRight, top + lp.topMargin);
+                top += lp.topMargin + child.getMeasuredHeight() + lp.bottomMargin;
+                contentTop = top;
+                contentBottom = top;
+            } else if (content == null) {
+                content = child;
+                contentTop = top + lp.topMargin;
+                contentBottom = Math.min(contentTop + child.getMeasuredHeight(), bottom);
+                layoutChild(child, parentLeft, parentRight, contentTop);
+            }
+        }
+        // overlays are placed within the bounds of the content
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE || child == content
+                    || child.getId() == R.id.header_container || child.getId() == R.id.footer_container) {
+                continue;
+            }
+            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            int childTop;
+            switch (lp.gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+                case Gravity.BOTTOM:
+                    childTop = contentBottom - lp.bottomMargin - child.getMeasuredHeight();
+                    break;
+                case Gravity.CENTER_VERTICAL:
+                    childTop = contentTop + (contentBottom - contentTop - child.getMeasuredHeight()) / 2 + lp.topMargin - lp.bottomMargin;
+                    break;
+                default:
+                    childTop = contentTop + lp.topMargin;
+                    break;
+            }
+            layoutChild(child, parentLeft, parentRight, childTop);
+        }
+    }
+
+    /**
+     * Place the child at the given top position, horizontally depending on its layout_gravity
+     */
+    private void layoutChild(View child, int parentLeft, int parentRight, int top) {
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        final int width = child.getMeasuredWidth();
+        int left;
+        switch (lp.gravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.RIGHT:
+                left = parentRight - lp.rightMargin - width;
+                break;
+            case Gravity.CENTER_HORIZONTAL:
+                left = parentLeft + (parentRight - parentLeft - width) / 2 + lp.leftMargin - lp.rightMargin;
+                break;
+            default:
+                left = parentLeft + lp.leftMargin;
+                break;
+        }
+        child.layout(left, top, left + width, top + child.getMeasuredHeight());
+    }
+
+    private static int getMeasuredWidthWithMargins(View child) {
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        return child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+    }
+
+    private static int getMeasuredHeightWithMargins(View child) {
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        return child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new LayoutParams((MarginLayoutParams) p);
+        }
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    /**
+     * Layout parameters of the children, only the margins and the horizontal gravity of header, content and footer
+     * are taken into account.
+     */
+    public static class LayoutParams extends FrameLayout.LayoutParams {
+
+        public LayoutParams(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+}
@@ -1,22 +1,31 @@
 package ch.temparus.android.dialog.holder;
 
+import android.graphics.Rect;
 import android.support.annotation.ColorRes;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import ch.temparus.android.dialog.Dialog;
 import ch.temparus.android.dialog.R;
 import ch.temparus.android.dialog.listeners.OnStateChangeListener;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * ViewHolder holds a custom layout for the {@link ch.temparus.android.dialog.Dialog} content.
  *
  * Note: The custom layout should be wrapped into a {@link android.widget.ScrollView} to guarantee
  *       that the view is fully accessible. Otherwise, the layout will be cropped!
  *
+ * Parts of the layout wrapped into a {@link DeferredSection} are inflated as soon as they are about to
+ * scroll into view or the dialog is expanded.
+ *
  * @author Sandro Lutz
  */
-public class ViewHolder implements Holder {
+public class ViewHolder implements RecyclableHolder {
 
     private static final int INVALID = -1;
 
@@ -29,6 +38,25 @@ public class ViewHolder implements Holder {
     private View mContentView;
     private int mViewResourceId = INVALID;
 
+    private ViewGroup mContentContainer;
+    private Dialog.State mState;
+    private final List<DeferredSection> mPendingSections = new ArrayList<>();
+    private final Rect mVisibleRect = new Rect();
+    private final int[] mLocation = new int[2];
+
+    private final ViewTreeObserver.OnPreDrawListener mSectionPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            // the container may have been taken over by another holder of a recycled dialog
+            if (mPendingSections.isEmpty() || mContentView.getParent() != mContentContainer) {
+                mContentContainer.getViewTreeObserver().removeOnPreDrawListener(this);
+                return true;
+            }
+            // skip the frame showing the placeholders of inflated sections
+            return !inflateVisibleSections();
+        }
+    };
+
     public ViewHolder(int viewResourceId) {
         mViewResourceId = viewResourceId;
     }
@@ -63,8 +91,14 @@ public class ViewHolder implements Holder {
     public View getView(LayoutInflater inflater, ViewGroup parent) {
         View view = inflater.inflate(R.layout.holder_view, parent, false);
         view.setId(R.id.dialog_content_view);
+        bindView(view);
+        return view;
+    }
+
+    @Override
+    public void bindView(View view) {
+        view.setBackgroundColor(view.getResources().getColor(mBackgroundColor));
         ViewGroup contentContainer = (ViewGroup) view.findViewById(R.id.view_container);
-        contentContainer.setBackgroundColor(parent.getResources().getColor(mBackgroundColor));
         contentContainer.setOnKeyListener(new View.OnKeyListener() {
             @Override
             public boolean onKey(View v, int keyCode, KeyEvent
@@ -75,15 +109,27 @@ public class ViewHolder implements Holder {
                 return mKeyListener.onKey(v, keyCode, event);
             }
         });
-        addContent(inflater, parent, contentContainer);
+        // a recycled view still contains the content of the previous holder
+        contentContainer.removeAllViews();
+        addContent(LayoutInflater.from(view.getContext()), contentContainer);
+        // a rebound holder must not register the listener twice
+        if (mContentContainer != null) {
+            mContentContainer.getViewTreeObserver().removeOnPreDrawListener(mSectionPreDrawListener);
+        }
+        contentContainer.getViewTreeObserver().removeOnPreDrawListener(mSectionPreDrawListener);
+        mContentContainer = contentContainer;
+        mPendingSections.clear();
+        collectSections(mContentView);
+        if (!mPendingSections.isEmpty()) {
+            contentContainer.getViewTreeObserver().addOnPreDrawListener(mSectionPreDrawListener);
+        }
         mHeaderContainer = (ViewGroup) view.findViewById(R.id.header_container);
         mFooterContainer = (ViewGroup) view.findViewById(R.id.footer_container);
-        return view;
     }
 
-    private void addContent(LayoutInflater inflater, ViewGroup parent, ViewGroup container) {
+    private void addContent(LayoutInflater inflater, ViewGroup container) {
         if (mViewResourceId != INVALID) {
-            mContentView = inflater.inflate(mViewResourceId, parent, false);
+            mContentView = inflater.inflate(mViewResourceId, container, false);
         } else {
             ViewGroup parentView = (ViewGroup) mContentView.getParent();
             if (parentView != null) {
@@ -93,6 +139,44 @@ public class ViewHolder implements Holder {
         container.addView(mContentView);
     }
 
+    private void collectSections(View view) {
+        if (view instanceof DeferredSection && !((DeferredSection) view).isInflated()) {
+            mPendingSections.add((DeferredSection) view);
+        } else if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                collectSections(viewGroup.getChildAt(i));
+            }
+        }
+    }
+
+    /**
+     * Inflate the sections within one visible height below the visible part of the content.
+     * @return true if a section has been inflated
+     */
+    private boolean inflateVisibleSections() {
+        if (!mContentContainer.getGlobalVisibleRect(mVisibleRect)) {
+            return false;
+        }
+        final int limit = mVisibleRect.bottom + mVisibleRect.height();
+        boolean isInflated = false;
+        for (int i = mPendingSections.size() - 1; i >= 0; i--) {
+            DeferredSection section = mPendingSections.get(i);
+            section.getLocationInWindow(mLocation);
+            if (mLocation[1] < limit) {
+                inflateSection(i);
+                isInflated = true;
+            }
+        }
+        return isInflated;
+    }
+
+    private void inflateSection(int index) {
+        DeferredSection section = mPendingSections.remove(index);
+        // sections may contain further sections
+        collectSections(section.inflate());
+    }
+
     @Override
     public void setOnKeyListener(View.OnKeyListener keyListener) {
         mKeyListener = keyListener;
@@ -110,6 +194,17 @@ public class ViewHolder implements Holder {
 
     @Override
     public OnStateChangeListener getOnStateChangeListener() {
-        return null;
+        return new OnStateChangeListener() {
+            @Override
+            public void onStateChanged(Dialog dialog, Dialog.State state) {
+                // the whole content is accessible once the sheet has been moved to the expanded state
+                if (state == Dialog.State.EXPANDED && (mState == Dialog.State.DRAGGING || mState == Dialog.State.SETTLING)) {
+                    while (!mPendingSections.isEmpty()) {
+                        inflateSection(mPendingSections.size() - 1);
+                    }
+                }
+                mState = state;
+            }
+        };
     }
 }
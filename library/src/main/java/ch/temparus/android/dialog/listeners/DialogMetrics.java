@@ -0,0 +1,54 @@
+package ch.temparus.android.dialog.listeners;
+
+import ch.temparus.android.dialog.Dialog;
+
+/**
+ * Interface for collecting performance metrics of a {@link Dialog}.
+ *
+ * All callbacks are called on the main thread. Durations are reported in nanoseconds.
+ *
+ * @author Sandro Lutz
+ */
+public interface DialogMetrics {
+
+    /**
+     * Called when the dialog is shown for the first time.
+     * @param dialog        dialog instance
+     * @param createNanos   time spent creating the dialog layout including inflation
+     *                      (time spent rebinding if the layout has been taken from a {@link ch.temparus.android.dialog.DialogPool})
+     */
+    void onCreated(Dialog dialog, long createNanos);
+
+    /**
+     * Called after the dialog layout has been measured.
+     * @param dialog        dialog instance
+     * @param measureNanos  time spent measuring the dialog layout
+     */
+    void onMeasured(Dialog dialog, long measureNanos);
+
+    /**
+     * Called when the first frame of the dialog has been drawn.
+     * @param dialog        dialog instance
+     * @param latencyNanos  time from {@link Dialog#show()} to the first drawn frame
+     */
+    void onFirstFrame(Dialog dialog, long latencyNanos);
+
+    /**
+     * Called when the dialog has come to rest after dragging and settling, or when it gets dismissed during the motion.
+     *
+     * Note: Only reported on Android 4.1 Jelly Bean and newer.
+     *
+     * @param dialog            dialog instance
+     * @param frameCount        number of frames rendered during the motion
+     * @param jankyFrameCount   number of frames which took longer than one display refresh interval
+     * @param droppedFrameCount number of display refresh intervals without a rendered frame
+     */
+    void onMotionFrames(Dialog dialog, int frameCount, int jankyFrameCount, int droppedFrameCount);
+
+    /**
+     * Called when an item click has been delivered to the {@link OnItemClickListener}.
+     * @param dialog        dialog instance
+     * @param latencyNanos  time from the touch release to the item click callback (millisecond resolution)
+     */
+    void onItemClick(Dialog dialog, long latencyNanos);
+}
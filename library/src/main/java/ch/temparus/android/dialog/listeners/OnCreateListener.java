@@ -0,0 +1,18 @@
+package ch.temparus.android.dialog.listeners;
+
+import ch.temparus.android.dialog.Dialog;
+
+/**
+ * Interface for listening to the asynchronous creation of a {@link Dialog}.
+ *
+ * @see Dialog.Builder#createAsync(OnCreateListener)
+ * @author Sandro Lutz
+ */
+public interface OnCreateListener {
+
+    /**
+     * Called on the main thread when the dialog has been created and is ready to be shown.
+     * @param dialog dialog instance
+     */
+    void onCreate(Dialog dialog);
+}
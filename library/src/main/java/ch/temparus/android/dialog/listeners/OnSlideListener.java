@@ -0,0 +1,18 @@
+package ch.temparus.android.dialog.listeners;
+
+import ch.temparus.android.dialog.Dialog;
+
+/**
+ * Interface for following the position of the {@link Dialog} while it is dragged or settling.
+ *
+ * @author Sandro Lutz
+ */
+public interface OnSlideListener {
+
+    /**
+     * Called at most once per frame when the position of the dialog has changed.
+     * @param dialog dialog instance
+     * @param slideOffset 0 if the dialog is collapsed, 1 if it is expanded and in between while it is moving
+     */
+    void onSlide(Dialog dialog, float slideOffset);
+}
@@ -10,7 +10,7 @@ import ch.temparus.android.dialog.Dialog;
 public interface OnStateChangeListener {
 
     /**
-     * Called when dialog's state has changed.
+     * Called when dialog's state has changed. Changes are delivered at most once per frame with the final state of the frame.
      * @param dialog dialog instance
      * @param state new state
      */
@@ -0,0 +1,249 @@
+package ch.temparus.android.dialog.paging;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * List loading its items page by page from a {@link PagingDataSource} on a background executor.
+ *
+ * Only the number of items and the first page are loaded initially. Further pages are loaded as soon as
+ * a position near them is accessed and pages far outside the accessed positions are dropped again.
+ * Items which have not been loaded yet are returned as null and should be displayed as placeholders.
+ *
+ * Note: All methods have to be called on the main thread.
+ *
+ * @see PagingListAdapter
+ * @see PagingRecyclerAdapter
+ * @author Sandro Lutz
+ */
+public class PagedList<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 8;
+
+    private static final String TAG = "PagedList";
+    private static final int INVALID = -1;
+    private static Executor sDefaultExecutor;
+
+    private final PagingDataSource<T> mDataSource;
+    private final Executor mExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final int mPageSize;
+    private final int mPrefetchDistance;
+    private final int mMaxPages;
+    private final SparseArray<List<T>> mPages = new SparseArray<>();
+    private final SparseBooleanArray mLoadingPages = new SparseBooleanArray();
+    private Callback mCallback;
+    private int mCount = INVALID;
+    private int mLastPage;
+    private int mGeneration;
+
+    /**
+     * Callback for changes of the loaded items. Called on the main thread.
+     */
+    public interface Callback {
+
+        /**
+         * Called when the number of items has been (re)loaded. All previously loaded items are invalid.
+         * @param count number of items
+         */
+        void onCountChanged(int count);
+
+        /**
+         * Called when the items of a page have been loaded and replace their placeholders.
+         * @param position position of the first loaded item
+         * @param count number of loaded items
+         */
+        void onItemsLoaded(int position, int count);
+    }
+
+    public PagedList(PagingDataSource<T> dataSource) {
+        this(dataSource, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, getDefaultExecutor());
+    }
+
+    /**
+     * @param dataSource source of the items
+     * @param pageSize number of items loaded at once
+     * @param maxPages maximal number of pages kept in memory (at least 3)
+     * @param executor executor on which the data source is called
+     */
+    public PagedList(PagingDataSource<T> dataSource, int pageSize, int maxPages, Executor executor) {
+        if (dataSource == null || executor == null) {
+            throw new NullPointerException("PagingDataSource and Executor must not be null");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be greater than 0");
+        }
+        if (maxPages < 3) {
+            throw new IllegalArgumentException("maxPages must be at least 3");
+        }
+        mDataSource = dataSource;
+        mExecutor = executor;
+        mPageSize = pageSize;
+        mPrefetchDistance = pageSize / 2;
+        mMaxPages = maxPages;
+        loadInitial();
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor();
+        }
+        return sDefaultExecutor;
+    }
+
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * @return number of items or 0 if the initial page has not been loaded yet
+     */
+    public int size() {
+        return (mCount == INVALID) ? 0 : mCount;
+    }
+
+    /**
+     * Get the item at the given position and load the pages around it.
+     * @return item or null if it has not been loaded yet
+     */
+    public T get(int position) {
+        loadAround(position);
+        return peek(position);
+    }
+
+    /**
+     * Get the item at the given position without loading any pages.
+     * @return item or null if it has not been loaded yet
+     */
+    public T peek(int position) {
+        List<T> items = mPages.get(position / mPageSize);
+        int index = position % mPageSize;
+        return (items != null && index < items.size()) ? items.get(index) : null;
+    }
+
+    /**
+     * Load the pages near the given position and drop pages far away from it.
+     */
+    public void loadAround(int position) {
+        if (mCount == INVALID || position < 0 || position >= mCount) {
+            return;
+        }
+        mLastPage = position / mPageSize;
+        int firstPage = Math.max(0, position - mPrefetchDistance) / mPageSize;
+        int lastPage = Math.min(mCount - 1, position + mPrefetchDistance) / mPageSize;
+        for (int page = firstPage; page <= lastPage; page++) {
+            loadPage(page);
+        }
+        dropPages();
+    }
+
+    /**
+     * Drop all items and reload the data set, e.g. after the content of the data source has changed.
+     */
+    @SuppressWarnings("unused")
+    public void invalidate() {
+        mPages.clear();
+        mLoadingPages.clear();
+        mCount = INVALID;
+        mLastPage = 0;
+        loadInitial();
+    }
+
+    private void loadInitial() {
+        final int generation = ++mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                int count = 0;
+                List<T> items = Collections.emptyList();
+                try {
+                    count = mDataSource.loadCount();
+                    if (count > 0) {
+                        items = mDataSource.loadPage(0, mPageSize);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load initial page", e);
+                }
+                final int loadedCount = count;
+                final List<T> loadedItems = items;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mCount = loadedCount;
+                        if (!loadedItems.isEmpty()) {
+                            mPages.put(0, loadedItems);
+                        }
+                        if (mCallback != null) {
+                            mCallback.onCountChanged(loadedCount);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void loadPage(final int page) {
+        if (mPages.get(page) != null || mLoadingPages.get(page)) {
+            return;
+        }
+        mLoadingPages.put(page, true);
+        final int generation = mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items = null;
+                try {
+                    items = mDataSource.loadPage(page * mPageSize, mPageSize);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load page " + page, e);
+                }
+                final List<T> loadedItems = items;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        // failed pages are loaded again on the next access
+                        mLoadingPages.delete(page);
+                        if (loadedItems == null || !isInRange(page)) {
+                            return;
+                        }
+                        mPages.put(page, loadedItems);
+                        if (mCallback != null && !loadedItems.isEmpty()) {
+                            mCallback.onItemsLoaded(page * mPageSize, loadedItems.size());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void dropPages() {
+        for (int i = mPages.size() - 1; i >= 0; i--) {
+            if (!isInRange(mPages.keyAt(i))) {
+                mPages.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * @return true if the page is close enough to the last accessed page to be kept in memory
+     */
+    private boolean isInRange(int page) {
+        int firstPage = mLastPage - (mMaxPages - 1) / 2;
+        return page >= firstPage && page < firstPage + mMaxPages;
+    }
+}
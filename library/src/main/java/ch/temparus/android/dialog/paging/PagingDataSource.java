@@ -0,0 +1,26 @@
+package ch.temparus.android.dialog.paging;
+
+import java.util.List;
+
+/**
+ * Source of the items displayed by a {@link PagedList}.
+ *
+ * Both methods are called on the executor of the {@link PagedList} and may block.
+ *
+ * @author Sandro Lutz
+ */
+public interface PagingDataSource<T> {
+
+    /**
+     * @return total number of items in the data set
+     */
+    int loadCount();
+
+    /**
+     * Load a page of the data set.
+     * @param offset position of the first item of the page
+     * @param size number of items to load. Less items are returned at the end of the data set only.
+     * @return items of the page
+     */
+    List<T> loadPage(int offset, int size);
+}
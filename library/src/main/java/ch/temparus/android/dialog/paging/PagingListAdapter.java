@@ -0,0 +1,78 @@
+package ch.temparus.android.dialog.paging;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+/**
+ * Adapter for {@link ch.temparus.android.dialog.holder.ListViewHolder} displaying the items of a {@link PagedList}.
+ *
+ * Pages are loaded while the list scrolls. Rows of items which have not been loaded yet are disabled
+ * and bound with a null item, so they can be displayed as placeholders.
+ *
+ * @author Sandro Lutz
+ */
+public abstract class PagingListAdapter<T> extends BaseAdapter implements PagedList.Callback {
+
+    private final PagedList<T> mPagedList;
+
+    public PagingListAdapter(PagedList<T> pagedList) {
+        mPagedList = pagedList;
+        mPagedList.setCallback(this);
+    }
+
+    public PagingListAdapter(PagingDataSource<T> dataSource) {
+        this(new PagedList<>(dataSource));
+    }
+
+    /**
+     * Get the view displaying the item at the given position.
+     * @param item item or null to display a placeholder
+     */
+    public abstract View getView(int position, T item, View convertView, ViewGroup parent);
+
+    @SuppressWarnings("unused")
+    public PagedList<T> getPagedList() {
+        return mPagedList;
+    }
+
+    @Override
+    public int getCount() {
+        return mPagedList.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return mPagedList.peek(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return mPagedList.peek(position) != null;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return getView(position, mPagedList.get(position), convertView, parent);
+    }
+
+    @Override
+    public void onCountChanged(int count) {
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onItemsLoaded(int position, int count) {
+        notifyDataSetChanged();
+    }
+}
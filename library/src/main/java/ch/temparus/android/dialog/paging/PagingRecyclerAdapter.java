@@ -0,0 +1,69 @@
+package ch.temparus.android.dialog.paging;
+
+import android.content.Context;
+import ch.temparus.android.advancedrecyclerview.BaseAdapter;
+
+/**
+ * Adapter for {@link ch.temparus.android.dialog.holder.RecyclerViewHolder} displaying the items of a {@link PagedList}.
+ *
+ * Pages are loaded while the list scrolls. Items which have not been loaded yet are not selectable
+ * and bound with a null item, so they can be displayed as placeholders.
+ *
+ * @author Sandro Lutz
+ */
+public abstract class PagingRecyclerAdapter<T, VH extends BaseAdapter.ViewHolder> extends BaseAdapter<VH> implements PagedList.Callback {
+
+    private final PagedList<T> mPagedList;
+
+    public PagingRecyclerAdapter(Context context, PagedList<T> pagedList) {
+        super(context);
+        mPagedList = pagedList;
+        mPagedList.setCallback(this);
+    }
+
+    @SuppressWarnings("unused")
+    public PagingRecyclerAdapter(Context context, PagingDataSource<T> dataSource) {
+        this(context, new PagedList<>(dataSource));
+    }
+
+    /**
+     * Bind the item at the given position.
+     * @param item item or null to display a placeholder
+     */
+    public abstract void onBindContentViewHolder(VH holder, int position, T item, boolean selected);
+
+    @SuppressWarnings("unused")
+    public PagedList<T> getPagedList() {
+        return mPagedList;
+    }
+
+    @Override
+    public void onBindContentViewHolder(VH holder, int position, boolean selected) {
+        onBindContentViewHolder(holder, position, mPagedList.get(position), selected);
+    }
+
+    @Override
+    public int getContentItemCount() {
+        return mPagedList.size();
+    }
+
+    @Override
+    public boolean isContentSelectable(int position) {
+        return mPagedList.peek(position) != null;
+    }
+
+    @Override
+    public Object getContentItem(int position) {
+        return mPagedList.peek(position);
+    }
+
+    @Override
+    public void onCountChanged(int count) {
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onItemsLoaded(int position, int count) {
+        notifyItemRangeChanged(getHeaderCount() + position, count);
+    }
+}
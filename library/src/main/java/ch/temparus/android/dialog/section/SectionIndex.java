@@ -0,0 +1,153 @@
+package ch.temparus.android.dialog.section;
+
+import android.widget.SectionIndexer;
+
+import java.util.Arrays;
+
+/**
+ * Start positions of the sections of a list.
+ *
+ * The index is built once and updated incrementally on data changes by rescanning the sections touching
+ * the changed range only. Looking up the position of a section takes O(1), the section of a position O(log n).
+ *
+ * @author Sandro Lutz
+ */
+public class SectionIndex implements SectionIndexer {
+
+    private final SectionProvider mProvider;
+    private Object[] mSections = new Object[0];
+    private int[] mStarts = new int[0];
+    private int mSectionCount;
+    private int mItemCount;
+
+    public SectionIndex(SectionProvider provider) {
+        if (provider == null) {
+            throw new NullPointerException("SectionProvider must not be null");
+        }
+        mProvider = provider;
+    }
+
+    /**
+     * Build the index of all items
+     */
+    public void rebuild(int itemCount) {
+        mSectionCount = 0;
+        mItemCount = 0;
+        update(0, 0, itemCount);
+    }
+
+    /**
+     * Update the index after items have been replaced.
+     * @param position position of the first replaced item
+     * @param removedCount number of items removed at the position
+     * @param insertedCount number of items inserted at the position
+     */
+    public void update(int position, int removedCount, int insertedCount) {
+        final int delta = insertedCount - removedCount;
+        final int itemCount = mItemCount + delta;
+
+        // rescan from the start of the section containing the item before the changed range ...
+        final int firstSection = (position > 0 && mSectionCount > 0) ? findSection(position - 1) : 0;
+        final int scanStart = (firstSection < mSectionCount) ? mStarts[firstSection] : 0;
+        // ... up to the first unchanged section start after it
+        int nextSection = firstSection;
+        while (nextSection < mSectionCount && mStarts[nextSection] <= position + removedCount) {
+            nextSection++;
+        }
+        final int scanEnd = (nextSection < mSectionCount) ? mStarts[nextSection] + delta : itemCount;
+
+        Object[] sections = new Object[mSectionCount + (scanEnd - scanStart) + 1];
+        int[] starts = new int[sections.length];
+        System.arraycopy(mSections, 0, sections, 0, firstSection);
+        System.arraycopy(mStarts, 0, starts, 0, firstSection);
+        int count = firstSection;
+
+        Object section = null;
+        for (int i = scanStart; i < scanEnd; i++) {
+            Object itemSection = mProvider.getSection(i);
+            if (i == scanStart || !equals(section, itemSection)) {
+                sections[count] = itemSection;
+                starts[count] = i;
+                count++;
+                section = itemSection;
+            }
+        }
+
+        // the first unchanged section merges with the last rescanned section if they are equal
+        int tail = nextSection;
+        if (tail < mSectionCount && count > 0 && scanEnd > scanStart && equals(section, mSections[tail])) {
+            tail++;
+        }
+        for (int i = tail; i < mSectionCount; i++) {
+            sections[count] = mSections[i];
+            starts[count] = mStarts[i] + delta;
+            count++;
+        }
+
+        mSections = sections;
+        mStarts = starts;
+        mSectionCount = count;
+        mItemCount = itemCount;
+    }
+
+    /**
+     * Update the index after items of an adapter have been replaced, which shows header items in front of
+     * and footer items after the indexed items. Replaced header and footer items are ignored.
+     * @param headerCount number of header items after the change
+     * @param itemCount number of indexed items after the change
+     * @param positionStart adapter position of the first replaced item
+     * @param removedCount number of items removed at the adapter position
+     * @param insertedCount number of items inserted at the adapter position
+     */
+    public void updateAdapterRange(int headerCount, int itemCount, int positionStart, int removedCount, int insertedCount) {
+        // clamp the range to the indexed items before (removed) and after (inserted) the change
+        final int start = Math.max(positionStart, headerCount);
+        final int removedItemCount = Math.max(0, Math.min(positionStart + removedCount, headerCount + mItemCount) - start);
+        final int insertedItemCount = Math.max(0, Math.min(positionStart + insertedCount, headerCount + itemCount) - start);
+
+        if (mItemCount - removedItemCount + insertedItemCount != itemCount) {
+            // the header count has changed as well, the positions of the range are ambiguous
+            rebuild(itemCount);
+        } else if (removedItemCount > 0 || insertedItemCount > 0) {
+            update(start - headerCount, removedItemCount, insertedItemCount);
+        }
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    /**
+     * @return index of the section containing the item at the given position
+     */
+    private int findSection(int position) {
+        int index = Arrays.binarySearch(mStarts, 0, mSectionCount, position);
+        return (index >= 0) ? index : Math.max(0, -index - 2);
+    }
+
+    public int getSectionCount() {
+        return mSectionCount;
+    }
+
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    @Override
+    public Object[] getSections() {
+        return Arrays.copyOf(mSections, mSectionCount);
+    }
+
+    @Override
+    public int getPositionForSection(int sectionIndex) {
+        if (mSectionCount == 0) {
+            return 0;
+        }
+        return mStarts[Math.max(0, Math.min(sectionIndex, mSectionCount - 1))];
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        return (mSectionCount == 0) ? 0 : findSection(position);
+    }
+}
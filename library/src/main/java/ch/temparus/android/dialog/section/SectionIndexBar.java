@@ -0,0 +1,137 @@
+package ch.temparus.android.dialog.section;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Vertical bar of section titles. Touching or sliding over the bar selects the section under the finger.
+ *
+ * @author Sandro Lutz
+ */
+public class SectionIndexBar extends View {
+
+    private static final int TEXT_COLOR = Color.parseColor("#8A000000");
+    private static final int TEXT_SIZE_SP = 12;
+    private static final int PADDING_DP = 4;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int mPadding;
+    private Object[] mSections = new Object[0];
+    private String[] mTitles = new String[0];
+    private int mSelectedSection = -1;
+    private OnSectionSelectedListener mListener;
+
+    /**
+     * Interface for listening to the selection of a section.
+     */
+    public interface OnSectionSelectedListener {
+
+        /**
+         * @param section index of the selected section
+         */
+        void onSectionSelected(int section);
+    }
+
+    public SectionIndexBar(Context context) {
+        this(context, null);
+    }
+
+    public SectionIndexBar(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SectionIndexBar(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP, getResources().getDisplayMetrics()));
+        mPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, PADDING_DP, getResources().getDisplayMetrics());
+    }
+
+    public void setOnSectionSelectedListener(OnSectionSelectedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Set the sections to display. The titles are the string representations of the sections.
+     */
+    public void setSections(Object[] sections) {
+        mSections = (sections != null) ? sections : new Object[0];
+        mTitles = new String[mSections.length];
+        for (int i = 0; i < mSections.length; i++) {
+            mTitles[i] = String.valueOf(mSections[i]);
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        float textWidth = mTextPaint.measureText("W");
+        for (String title : mTitles) {
+            textWidth = Math.max(textWidth, mTextPaint.measureText(title));
+        }
+        int width = (int) Math.ceil(textWidth) + 2 * mPadding + getPaddingLeft() + getPaddingRight();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final int count = mTitles.length;
+        final int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (count == 0 || height <= 0) {
+            return;
+        }
+        final Paint.FontMetrics metrics = mTextPaint.getFontMetrics();
+        final float textHeight = metrics.descent - metrics.ascent;
+        final float sectionHeight = (float) height / count;
+        // skip titles if they don't fit
+        final int step = (int) Math.ceil(textHeight / sectionHeight);
+        final float x = getPaddingLeft() + (getWidth() - getPaddingLeft() - getPaddingRight()) / 2f;
+        for (int i = 0; i < count; i += step) {
+            float y = getPaddingTop() + (i + 0.5f) * sectionHeight - (metrics.ascent + metrics.descent) / 2;
+            canvas.drawText(mTitles[i], x, y, mTextPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(@android.support.annotation.NonNull MotionEvent event) {
+        if (mTitles.length == 0) {
+            return false;
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // neither the list nor the dialog may take over the gesture
+                getParent().requestDisallowInterceptTouchEvent(true);
+                setPressed(true);
+                // fall through
+            case MotionEvent.ACTION_MOVE:
+                selectSection(event.getY());
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                setPressed(false);
+                mSelectedSection = -1;
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    private void selectSection(float y) {
+        final int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        final int section = (int) ((y - getPaddingTop()) / height * mTitles.length);
+        final int clampedSection = Math.max(0, Math.min(section, mTitles.length - 1));
+        if (clampedSection != mSelectedSection) {
+            mSelectedSection = clampedSection;
+            if (mListener != null) {
+                mListener.onSectionSelected(clampedSection);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ch.temparus.android.dialog.section;
+
+/**
+ * Provides the section of the items of a sectioned list, e.g. the first letter of a name.
+ *
+ * Items of the same section have to be adjacent. Sections are compared with {@link Object#equals(Object)}
+ * and displayed with {@link Object#toString()}.
+ *
+ * @author Sandro Lutz
+ */
+public interface SectionProvider {
+
+    /**
+     * @param position position of the item in the content of the adapter (without headers)
+     * @return section of the item
+     */
+    Object getSection(int position);
+}
@@ -0,0 +1,30 @@
+package ch.temparus.android.dialog;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread (HotSpot JVMs only).
+ *
+ * @author Sandro Lutz
+ */
+final class AllocationCounter {
+
+    private final com.sun.management.ThreadMXBean mThreadMXBean;
+    private final long mThreadId;
+
+    AllocationCounter() {
+        mThreadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        mThreadId = Thread.currentThread().getId();
+    }
+
+    static boolean isSupported() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported();
+    }
+
+    long getAllocatedBytes() {
+        return mThreadMXBean.getThreadAllocatedBytes(mThreadId);
+    }
+}
@@ -0,0 +1,324 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static ch.temparus.android.dialog.TestDialogs.HEIGHT;
+import static ch.temparus.android.dialog.TestDialogs.WIDTH;
+import static ch.temparus.android.dialog.TestDialogs.layout;
+import static ch.temparus.android.dialog.TestDialogs.measure;
+
+/**
+ * Budgets for the hot paths of {@link DialogLayout}. A change exceeding one of the budgets fails the build.
+ *
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogLayoutBudgetTest {
+
+    private static final int MAX_MEASURE_PASSES_PER_LAYOUT = 1;
+    private static final int MAX_CONTENT_MEASURES_PER_PASS = 1;
+    private static final int MAX_CLICK_LISTENERS = 1;
+    private static final int MAX_DIALOG_LAYOUT_CHILDREN = 1;
+    private static final int MAX_ALLOCATED_BYTES_WHILE_DRAGGING = 0;
+    // average bytes per frame, tolerates allocations of the instrumented framework which are not caused by the dialog
+    private static final int MAX_ALLOCATED_BYTES_PER_SCROLL_FRAME = 8;
+
+    private static final int CONTENT_HEIGHT = 3000;
+    private static final int COLLAPSED_HEIGHT = 600;
+    private static final int CLICKABLE_VIEW_COUNT = 50;
+    private static final int DRAG_STEP_SIZE = 20;
+    private static final int DRAG_DISTANCE = 1500;
+    private static final int WARMUP_GESTURE_COUNT = 3;
+    private static final int GESTURE_COUNT = 30;
+    private static final int FRAME_COUNT = 250;
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = TestDialogs.startActivity();
+    }
+
+    @Test
+    public void showMeasuresOncePerLayout() {
+        View content = new View(mActivity);
+        DialogLayout dialogLayout = show(content);
+
+        // the requested layout makes View.measure() call onMeasure() until the dialog has been laid out again
+        content.requestLayout();
+        int measurePassCount = dialogLayout.getMeasurePassCount();
+        // parents may measure their children several times per layout pass
+        measure(dialogLayout);
+        assertEquals("Requested layout has not been measured", measurePassCount + 1, dialogLayout.getMeasurePassCount());
+        layout(dialogLayout);
+
+        assertTrue("Measure passes per layout exceeded budget",
+                dialogLayout.getMeasurePassCount() - measurePassCount <= MAX_MEASURE_PASSES_PER_LAYOUT);
+    }
+
+    @Test
+    public void contentIsMeasuredOncePerPass() {
+        MeasureCountingView content = new MeasureCountingView(mActivity);
+        DialogLayout dialogLayout = show(content);
+
+        content.requestLayout();
+        content.mMeasureCount = 0;
+        measure(dialogLayout);
+
+        assertTrue("Content measures per pass exceeded budget: " + content.mMeasureCount,
+                content.mMeasureCount <= MAX_CONTENT_MEASURES_PER_PASS);
+    }
+
+    @Test
+    public void contentContainerIsPositionedWithoutHelperViews() {
+        View content = new View(mActivity);
+        content.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, COLLAPSED_HEIGHT));
+        DialogLayout dialogLayout = show(content);
+
+        assertTrue("Children of the dialog layout exceeded budget: " + dialogLayout.getChildCount(),
+                dialogLayout.getChildCount() <= MAX_DIALOG_LAYOUT_CHILDREN);
+        View container = dialogLayout.getDialogView();
+        assertEquals(HEIGHT, container.getBottom());
+        assertEquals(WIDTH - container.getRight(), container.getLeft());
+    }
+
+    @Test
+    public void windowAttachModeDoesNotLayoutHost() {
+        ViewGroup host = (ViewGroup) mActivity.findViewById(android.R.id.content);
+        layout(host);
+        int hostChildCount = host.getChildCount();
+
+        Dialog dialog = new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(new View(mActivity)))
+                .setAttachMode(Dialog.AttachMode.WINDOW)
+                .create();
+        dialog.show();
+
+        assertEquals(hostChildCount, host.getChildCount());
+        assertFalse("Showing the dialog requested a layout of the host", host.isLayoutRequested());
+    }
+
+    @Test
+    public void clickListenerIsShared() throws Exception {
+        LinearLayout content = new LinearLayout(mActivity);
+        for (int i = 0; i < CLICKABLE_VIEW_COUNT; i++) {
+            View view = new View(mActivity);
+            view.setId(i + 1);
+            content.addView(view);
+        }
+        DialogLayout dialogLayout = show(content);
+
+        Set<Object> listeners = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        collectClickListeners(dialogLayout, listeners);
+
+        assertTrue("Click listeners exceeded budget: " + listeners.size(), listeners.size() <= MAX_CLICK_LISTENERS);
+        for (int i = 0; i < CLICKABLE_VIEW_COUNT; i++) {
+            assertTrue(content.getChildAt(i).hasOnClickListeners());
+        }
+    }
+
+    @Test
+    public void dragDoesNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported());
+        DialogLayout dialogLayout = showCollapsed();
+        // state changes are delivered on the next frame, which is not drawn while the gestures run
+        ShadowLooper.pauseMainLooper();
+
+        final long downTime = SystemClock.uptimeMillis();
+        final float x = WIDTH / 2f;
+        // expand the collapsed dialog, the drag is released at the expanded edge
+        MotionEvent[] expand = createGesture(downTime, x, HEIGHT - COLLAPSED_HEIGHT / 2f, -DRAG_DISTANCE);
+        // collapse the dialog by a drag intercepted from the content and drag it beyond the expanded edge again
+        MotionEvent[] collapseAndExpand = createGesture(downTime, x, HEIGHT / 10f, DRAG_DISTANCE, -DRAG_DISTANCE);
+
+        dispatch(dialogLayout, expand);
+        assertEquals(Dialog.State.EXPANDED, dialogLayout.getState());
+        for (int i = 0; i < WARMUP_GESTURE_COUNT; i++) {
+            dispatch(dialogLayout, collapseAndExpand);
+        }
+
+        AllocationCounter counter = new AllocationCounter();
+        long allocatedBytes = counter.getAllocatedBytes();
+        for (int i = 0; i < GESTURE_COUNT; i++) {
+            dispatch(dialogLayout, collapseAndExpand);
+        }
+        allocatedBytes = counter.getAllocatedBytes() - allocatedBytes;
+
+        assertEquals(Dialog.State.EXPANDED, dialogLayout.getState());
+        assertTrue("Allocations while dragging exceeded budget: " + allocatedBytes + " bytes in " + GESTURE_COUNT + " gestures",
+                allocatedBytes <= MAX_ALLOCATED_BYTES_WHILE_DRAGGING);
+        assertActions(expand);
+        assertActions(collapseAndExpand);
+
+        recycle(expand);
+        recycle(collapseAndExpand);
+    }
+
+    @Test
+    public void contentScrollsWithinTheGestureExpandingTheDialog() {
+        ScrollView scrollView = new ScrollView(mActivity);
+        scrollView.addView(new View(mActivity), new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, CONTENT_HEIGHT));
+        scrollView.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        DialogLayout dialogLayout = showCollapsed(scrollView);
+
+        // the drag is intercepted from the scroll view and continues beyond the expanded edge
+        MotionEvent[] events = createGesture(SystemClock.uptimeMillis(), WIDTH / 2f, HEIGHT - COLLAPSED_HEIGHT / 2f, -2 * DRAG_DISTANCE);
+        dispatch(dialogLayout, events);
+
+        assertEquals(Dialog.State.EXPANDED, dialogLayout.getState());
+        assertTrue("Content has not been scrolled within the gesture", scrollView.getScrollY() > 0);
+        assertActions(events);
+        recycle(events);
+    }
+
+    @Test
+    public void settleDoesNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported());
+        DialogLayout dialogLayout = showCollapsed();
+
+        dialogLayout.expand();
+        dialogLayout.computeScroll();
+
+        AllocationCounter counter = new AllocationCounter();
+        long allocatedBytes = 0;
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            SystemClock.sleep(1);
+            long frameStart = counter.getAllocatedBytes();
+            dialogLayout.computeScroll();
+            allocatedBytes += counter.getAllocatedBytes() - frameStart;
+        }
+
+        assertEquals(Dialog.State.EXPANDED, dialogLayout.getState());
+        assertTrue("Allocations per scroll frame exceeded budget: " + allocatedBytes + " bytes in " + FRAME_COUNT + " frames",
+                allocatedBytes / FRAME_COUNT <= MAX_ALLOCATED_BYTES_PER_SCROLL_FRAME);
+    }
+
+    private DialogLayout show(View content) {
+        Dialog dialog = new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(content))
+                .create();
+        return TestDialogs.show(mActivity, dialog);
+    }
+
+    private DialogLayout showCollapsed() {
+        View content = new View(mActivity);
+        content.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, CONTENT_HEIGHT));
+        return showCollapsed(content);
+    }
+
+    private DialogLayout showCollapsed(View content) {
+        Dialog dialog = new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(content))
+                .setCollapsedHeight(COLLAPSED_HEIGHT)
+                .create();
+        DialogLayout dialogLayout = TestDialogs.show(mActivity, dialog);
+        assertEquals(Dialog.State.COLLAPSED, dialogLayout.getState());
+        return dialogLayout;
+    }
+
+    /**
+     * @return down, move and up events of a vertical drag by the given distances one after another
+     */
+    private static MotionEvent[] createGesture(long downTime, float x, float y, int... distances) {
+        int steps = 0;
+        for (int distance : distances) {
+            steps += Math.abs(distance) / DRAG_STEP_SIZE;
+        }
+        MotionEvent[] events = new MotionEvent[steps + 2];
+        events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+        int index = 1;
+        for (int distance : distances) {
+            final int step = (distance > 0) ? DRAG_STEP_SIZE : -DRAG_STEP_SIZE;
+            for (int i = Math.abs(distance) / DRAG_STEP_SIZE; i > 0; i--) {
+                y += step;
+                events[index] = MotionEvent.obtain(downTime, downTime + index, MotionEvent.ACTION_MOVE, x, y, 0);
+                index++;
+            }
+        }
+        events[index] = MotionEvent.obtain(downTime, downTime + index, MotionEvent.ACTION_UP, x, y, 0);
+        return events;
+    }
+
+    private static void dispatch(View view, MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            view.dispatchTouchEvent(event);
+        }
+    }
+
+    /**
+     * The dialog must not change the events it receives
+     */
+    private static void assertActions(MotionEvent[] events) {
+        assertEquals(MotionEvent.ACTION_DOWN, events[0].getAction());
+        for (int i = 1; i < events.length - 1; i++) {
+            assertEquals(MotionEvent.ACTION_MOVE, events[i].getAction());
+        }
+        assertEquals(MotionEvent.ACTION_UP, events[events.length - 1].getAction());
+    }
+
+    private static void recycle(MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+    }
+
+    private static void collectClickListeners(View view, Set<Object> listeners) throws ReflectiveOperationException {
+        Field listenerInfoField = View.class.getDeclaredField("mListenerInfo");
+        listenerInfoField.setAccessible(true);
+        Object listenerInfo = listenerInfoField.get(view);
+        if (listenerInfo != null) {
+            Field clickListenerField = listenerInfo.getClass().getDeclaredField("mOnClickListener");
+            clickListenerField.setAccessible(true);
+            Object listener = clickListenerField.get(listenerInfo);
+            if (listener != null) {
+                listeners.add(listener);
+            }
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                collectClickListeners(viewGroup.getChildAt(i), listeners);
+            }
+        }
+    }
+
+    private static class MeasureCountingView extends View {
+        int mMeasureCount;
+
+        MeasureCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.view.View;
+import ch.temparus.android.dialog.animation.TransitionEngine;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static ch.temparus.android.dialog.TestDialogs.IMMEDIATE_TRANSITION_ENGINE;
+
+/**
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogManagerTest {
+
+    private Activity mActivity;
+    private DialogManager mManager;
+
+    @Before
+    public void setUp() {
+        mActivity = TestDialogs.startActivity();
+        mManager = new DialogManager();
+    }
+
+    @Test
+    public void showsOneDialogAtATime() {
+        Dialog first = create();
+        Dialog second = create();
+        mManager.show(first);
+        mManager.show(second);
+        mManager.show(second);
+
+        assertSame(first, mManager.getCurrentDialog());
+        assertEquals(1, mManager.getQueuedCount());
+        assertFalse(second.isShowing());
+
+        dismiss(first);
+        assertSame(second, mManager.getCurrentDialog());
+        assertEquals(0, mManager.getQueuedCount());
+        assertFalse(first.isShowing());
+        assertTrue(second.isShowing());
+
+        dismiss(second);
+        assertNull(mManager.getCurrentDialog());
+    }
+
+    @Test
+    public void queuedDialogsAreOrderedByPriority() {
+        Dialog current = create();
+        Dialog low = create();
+        Dialog high = create();
+        Dialog sameAsHigh = create();
+        mManager.show(current, null, DialogManager.PRIORITY_DEFAULT);
+        mManager.show(low, null, 1);
+        mManager.show(high, null, 5);
+        mManager.show(sameAsHigh, null, 5);
+
+        dismiss(current);
+        assertSame(high, mManager.getCurrentDialog());
+        dismiss(high);
+        assertSame(sameAsHigh, mManager.getCurrentDialog());
+        dismiss(sameAsHigh);
+        assertSame(low, mManager.getCurrentDialog());
+    }
+
+    @Test
+    public void duplicateKeysAreMerged() {
+        Dialog current = create();
+        Dialog queued = create();
+        Dialog replacement = create();
+        mManager.show(current, "error", 0);
+        mManager.show(create(), "error", 9);
+        mManager.show(queued, "update", 5);
+        mManager.show(replacement, "update", 1);
+
+        assertEquals(1, mManager.getQueuedCount());
+        assertFalse(mManager.cancel(queued));
+
+        dismiss(current);
+        assertSame(replacement, mManager.getCurrentDialog());
+    }
+
+    @Test
+    public void dismissAllWhileCurrentDialogIsAnimatingOut() {
+        DeferredTransitionEngine transitionEngine = new DeferredTransitionEngine();
+        Dialog current = create(transitionEngine);
+        Dialog queued = create(transitionEngine);
+        mManager.show(current);
+        mManager.show(queued);
+        transitionEngine.finish();
+
+        current.dismiss();
+        mManager.dismissAll();
+        assertSame(current, mManager.getCurrentDialog());
+        assertEquals(0, mManager.getQueuedCount());
+
+        transitionEngine.finish();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertNull(mManager.getCurrentDialog());
+        assertFalse(current.isShowing());
+        assertFalse(queued.isShowing());
+    }
+
+    private Dialog create() {
+        return create(IMMEDIATE_TRANSITION_ENGINE);
+    }
+
+    private Dialog create(TransitionEngine transitionEngine) {
+        return new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(new View(mActivity)))
+                .setTransitionEngine(transitionEngine)
+                .create();
+    }
+
+    /**
+     * Dismiss the dialog and run the tasks which detach it
+     */
+    private static void dismiss(Dialog dialog) {
+        dialog.dismiss();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    /**
+     * Transition engine which ends the started transitions only when {@link #finish()} is called
+     */
+    private static class DeferredTransitionEngine implements TransitionEngine {
+        private final List<Runnable> mEndActions = new ArrayList<>();
+
+        @Override
+        public void start(View target, int resId, Runnable endAction) {
+            mEndActions.add(endAction);
+        }
+
+        @Override
+        public void cancel(View target) {
+        }
+
+        void finish() {
+            List<Runnable> endActions = new ArrayList<>(mEndActions);
+            mEndActions.clear();
+            for (Runnable endAction : endActions) {
+                endAction.run();
+            }
+        }
+    }
+}
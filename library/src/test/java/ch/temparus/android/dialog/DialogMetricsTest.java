@@ -0,0 +1,126 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import ch.temparus.android.dialog.listeners.DialogMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static ch.temparus.android.dialog.TestDialogs.HEIGHT;
+import static ch.temparus.android.dialog.TestDialogs.IMMEDIATE_TRANSITION_ENGINE;
+import static ch.temparus.android.dialog.TestDialogs.WIDTH;
+
+/**
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogMetricsTest {
+
+    private static final int CONTENT_HEIGHT = 3000;
+    private static final int COLLAPSED_HEIGHT = 600;
+
+    private Activity mActivity;
+    private MotionFramesCounter mMetrics;
+
+    @Before
+    public void setUp() {
+        mActivity = TestDialogs.startActivity();
+        mMetrics = new MotionFramesCounter();
+    }
+
+    @Test
+    public void frameMonitorStopsWhenPooledDialogIsDismissedWhileDragging() {
+        assertFrameMonitorStopsWhenDismissedWhileDragging(new DialogPool());
+    }
+
+    @Test
+    public void frameMonitorStopsWhenDialogIsDismissedWhileDragging() {
+        assertFrameMonitorStopsWhenDismissedWhileDragging(null);
+    }
+
+    private void assertFrameMonitorStopsWhenDismissedWhileDragging(DialogPool pool) {
+        Dialog dialog = create(pool);
+        FrameMonitor frameMonitor = showAndDrag(dialog).getFrameMonitor();
+        assertTrue(frameMonitor.isRunning());
+
+        dialog.dismiss();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertFalse("Frame monitor is still running after the dialog has been dismissed", frameMonitor.isRunning());
+        assertEquals(1, mMetrics.mMotionCount);
+    }
+
+    private Dialog create(DialogPool pool) {
+        View content = new View(mActivity);
+        content.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, CONTENT_HEIGHT));
+
+        return new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(content))
+                .setCollapsedHeight(COLLAPSED_HEIGHT)
+                .setDialogPool(pool)
+                .setDialogMetrics(mMetrics)
+                .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE)
+                .create();
+    }
+
+    /**
+     * Show the dialog and start dragging it up without releasing the pointer
+     */
+    private DialogLayout showAndDrag(Dialog dialog) {
+        DialogLayout dialogLayout = TestDialogs.show(mActivity, dialog);
+
+        final long downTime = SystemClock.uptimeMillis();
+        final float x = WIDTH / 2f;
+        float y = HEIGHT - COLLAPSED_HEIGHT / 2f;
+        dispatch(dialogLayout, downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 0; i < 10; i++) {
+            y -= 20;
+            dispatch(dialogLayout, downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        return dialogLayout;
+    }
+
+    private static void dispatch(View view, long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private static class MotionFramesCounter implements DialogMetrics {
+        int mMotionCount;
+
+        @Override
+        public void onCreated(Dialog dialog, long createNanos) {
+        }
+
+        @Override
+        public void onMeasured(Dialog dialog, long measureNanos) {
+        }
+
+        @Override
+        public void onFirstFrame(Dialog dialog, long latencyNanos) {
+        }
+
+        @Override
+        public void onMotionFrames(Dialog dialog, int frameCount, int jankyFrameCount, int droppedFrameCount) {
+            mMotionCount++;
+        }
+
+        @Override
+        public void onItemClick(Dialog dialog, long latencyNanos) {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static ch.temparus.android.dialog.TestDialogs.HEIGHT;
+import static ch.temparus.android.dialog.TestDialogs.IMMEDIATE_TRANSITION_ENGINE;
+import static ch.temparus.android.dialog.TestDialogs.WIDTH;
+
+/**
+ * Measures how often the dialog paints the pixels of the screen. The content views of the test draw nothing,
+ * so every pixel has to be painted exactly once: by the dim outside of the sheet or by the sheet background.
+ *
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogOverdrawTest {
+
+    private static final int MAX_LAYERS_PER_PIXEL = 1;
+
+    private static final int SAMPLE_STEP = 10;
+    private static final int HEADER_HEIGHT = 100;
+    private static final int FOOTER_HEIGHT = 100;
+    private static final int COLLAPSED_HEIGHT = 600;
+    private static final int DIM_FADE_WAIT = 1000; // ms
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = TestDialogs.startActivity();
+    }
+
+    @Test
+    public void bottomDialogPaintsEveryPixelOnce() {
+        assertOverdraw(show(Dialog.Gravity.BOTTOM, 800, false));
+    }
+
+    @Test
+    public void collapsedBottomDialogPaintsEveryPixelOnce() {
+        assertOverdraw(show(Dialog.Gravity.BOTTOM, 3000, true));
+    }
+
+    @Test
+    public void centerDialogPaintsEveryPixelOnce() {
+        assertOverdraw(show(Dialog.Gravity.CENTER, 400, false));
+    }
+
+    private DialogLayout show(Dialog.Gravity gravity, int contentHeight, boolean isCollapsed) {
+        View content = new View(mActivity);
+        content.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, contentHeight));
+        View header = new View(mActivity);
+        header.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, HEADER_HEIGHT));
+        View footer = new View(mActivity);
+        footer.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, FOOTER_HEIGHT));
+
+        Dialog.Builder builder = new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(content))
+                .setHeader(header)
+                .setFooter(footer)
+                .setGravity(gravity)
+                .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE);
+        if (isCollapsed) {
+            builder.setCollapsedHeight(COLLAPSED_HEIGHT);
+        }
+        builder.create().show();
+        SystemClock.sleep(DIM_FADE_WAIT); // let the dim fade in
+
+        DialogLayout dialogLayout = TestDialogs.getDialogLayout(mActivity);
+        TestDialogs.layout(dialogLayout);
+        return dialogLayout;
+    }
+
+    private static void assertOverdraw(DialogLayout dialogLayout) {
+        List<Rect> layers = collectLayers(dialogLayout);
+        int maxCount = 0;
+        int minCount = Integer.MAX_VALUE;
+        for (int y = 0; y < HEIGHT; y += SAMPLE_STEP) {
+            for (int x = 0; x < WIDTH; x += SAMPLE_STEP) {
+                int count = countLayers(layers, x, y);
+                maxCount = Math.max(maxCount, count);
+                minCount = Math.min(minCount, count);
+            }
+        }
+        assertEquals("Layers per pixel exceeded budget", MAX_LAYERS_PER_PIXEL, maxCount);
+        assertEquals("Pixels without dim or sheet background", 1, minCount);
+    }
+
+    /**
+     * @return screen rects of all opaque backgrounds and of the scrim
+     */
+    private static List<Rect> collectLayers(DialogLayout dialogLayout) {
+        final List<Rect> layers = new ArrayList<>();
+        collectBackgrounds(dialogLayout, 0, 0, layers);
+
+        final int scrollX = dialogLayout.getScrollX();
+        final int scrollY = dialogLayout.getScrollY();
+        dialogLayout.drawScrim(new Canvas() {
+            @Override
+            public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+                if (Color.alpha(paint.getColor()) != 0) {
+                    layers.add(new Rect((int) left - scrollX, (int) top - scrollY, (int) right - scrollX, (int) bottom - scrollY));
+                }
+            }
+        });
+        return layers;
+    }
+
+    private static void collectBackgrounds(View view, int parentX, int parentY, List<Rect> layers) {
+        if (view.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        final int left = parentX + view.getLeft();
+        final int top = parentY + view.getTop();
+        Drawable background = view.getBackground();
+        if (background instanceof ColorDrawable && Color.alpha(((ColorDrawable) background).getColor()) != 0
+                && view.getWidth() > 0 && view.getHeight() > 0) {
+            layers.add(new Rect(left, top, left + view.getWidth(), top + view.getHeight()));
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectBackgrounds(group.getChildAt(i), left - view.getScrollX(), top - view.getScrollY(), layers);
+            }
+        }
+    }
+
+    private static int countLayers(List<Rect> layers, int x, int y) {
+        int count = 0;
+        for (Rect layer : layers) {
+            if (layer.contains(x, y)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,209 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import ch.temparus.android.dialog.holder.Holder;
+import ch.temparus.android.dialog.holder.ListViewHolder;
+import ch.temparus.android.dialog.holder.ViewHolder;
+import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static ch.temparus.android.dialog.TestDialogs.IMMEDIATE_TRANSITION_ENGINE;
+
+/**
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogPoolTest {
+
+    private Activity mActivity;
+    private DialogPool mPool;
+
+    @Before
+    public void setUp() {
+        mActivity = TestDialogs.startActivity();
+        mPool = new DialogPool();
+    }
+
+    @Test
+    public void holdersOfTheSameClassShareOnePooledLayout() {
+        View firstContent = new View(mActivity);
+        View firstHeader = new View(mActivity);
+        DialogLayout pooledLayout = showAndDismiss(create(new ViewHolder(firstContent), firstHeader));
+        View pooledContentView = getContentView(pooledLayout);
+        assertEquals(1, mPool.getSize());
+
+        View secondContent = new View(mActivity);
+        View secondHeader = new View(mActivity);
+        Dialog second = create(new ViewHolder(secondContent), secondHeader);
+        second.show();
+
+        assertEquals(1, mPool.getHitCount());
+        assertEquals(1, mPool.getMissCount());
+        assertSame(pooledLayout, getDialogLayout());
+        assertSame(pooledContentView, getContentView(getDialogLayout()));
+        assertSame(secondContent, second.getHolderView());
+        assertNotNull(secondContent.getParent());
+        assertNotNull(secondHeader.getParent());
+        assertNull(firstContent.getParent());
+        assertNull(firstHeader.getParent());
+        assertEquals(0, pooledLayout.getScrollY());
+    }
+
+    @Test
+    public void adapterOfTheNewHolderIsAttachedToThePooledList() {
+        DialogLayout pooledLayout = showAndDismiss(create(new ListViewHolder(createAdapter("first")), null));
+        ListView pooledList = (ListView) getContentView(pooledLayout).findViewById(R.id.list);
+
+        ArrayAdapter<String> adapter = createAdapter("second");
+        Dialog second = create(new ListViewHolder(adapter), null);
+        second.show();
+
+        assertEquals(1, mPool.getHitCount());
+        assertSame(pooledList, second.getHolderView());
+        assertSame(adapter, pooledList.getAdapter());
+    }
+
+    @Test
+    public void holdersOfDifferentClassesDoNotShareLayouts() {
+        DialogLayout pooledLayout = showAndDismiss(create(new ViewHolder(new View(mActivity)), null));
+
+        create(new ListViewHolder(createAdapter("list")), null).show();
+
+        assertEquals(0, mPool.getHitCount());
+        assertEquals(1, mPool.getSize());
+        assertNotSame(pooledLayout, getDialogLayout());
+    }
+
+    @Test
+    public void headerOfNonRecyclableHolderIsAddedAgainWhenShownAgain() {
+        View header = new View(mActivity);
+        Dialog dialog = create(new NonRecyclableHolder(new ViewHolder(new View(mActivity))), header);
+        DialogLayout pooledLayout = showAndDismiss(dialog);
+
+        dialog.show();
+
+        assertSame(pooledLayout, getDialogLayout());
+        assertNotNull(dialog.getHolderView().getParent());
+        assertNotNull(header.getParent());
+    }
+
+    @Test
+    public void builderChangedAfterCreateDoesNotChangeTheDialogShownAgain() {
+        View header = new View(mActivity);
+        Dialog.Builder builder = new Dialog.Builder(mActivity)
+                .setContentHolder(new ViewHolder(new View(mActivity)))
+                .setHeader(header)
+                .setDialogPool(mPool)
+                .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE);
+        Dialog dialog = builder.create();
+        showAndDismiss(dialog);
+
+        builder.setHeader(new View(mActivity));
+        dialog.show();
+
+        assertNotNull(header.getParent());
+    }
+
+    private Dialog create(Holder holder, View header) {
+        return new Dialog.Builder(mActivity)
+                .setContentHolder(holder)
+                .setHeader(header)
+                .setDialogPool(mPool)
+                .setTransitionEngine(IMMEDIATE_TRANSITION_ENGINE)
+                .create();
+    }
+
+    /**
+     * @return layout of the dialog, which has been returned to the pool
+     */
+    private DialogLayout showAndDismiss(Dialog dialog) {
+        dialog.show();
+        DialogLayout dialogLayout = getDialogLayout();
+        dialog.dismiss();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        return dialogLayout;
+    }
+
+    private ArrayAdapter<String> createAdapter(String item) {
+        return new ArrayAdapter<>(mActivity, android.R.layout.simple_list_item_1, new String[]{item});
+    }
+
+    private DialogLayout getDialogLayout() {
+        return TestDialogs.getDialogLayout(mActivity);
+    }
+
+    /**
+     * @return content view of the holder, which is kept by a pooled layout
+     */
+    private static View getContentView(DialogLayout dialogLayout) {
+        return dialogLayout.getDialogView().findViewById(R.id.dialog_content_view);
+    }
+
+    /**
+     * Holder which inflates a new content view each time it is bound to a layout
+     */
+    private static class NonRecyclableHolder implements Holder {
+
+        private final Holder mHolder;
+
+        NonRecyclableHolder(Holder holder) {
+            mHolder = holder;
+        }
+
+        @Override
+        public void addHeader(View view) {
+            mHolder.addHeader(view);
+        }
+
+        @Override
+        public void addFooter(View view) {
+            mHolder.addFooter(view);
+        }
+
+        @Override
+        public void setBackgroundColor(int resId) {
+            mHolder.setBackgroundColor(resId);
+        }
+
+        @Override
+        public View getView(LayoutInflater inflater, ViewGroup parent) {
+            return mHolder.getView(inflater, parent);
+        }
+
+        @Override
+        public void setOnKeyListener(View.OnKeyListener keyListener) {
+            mHolder.setOnKeyListener(keyListener);
+        }
+
+        @Override
+        public View getInflatedView() {
+            return mHolder.getInflatedView();
+        }
+
+        @Override
+        public boolean isInterceptTouchEventDisallowed() {
+            return mHolder.isInterceptTouchEventDisallowed();
+        }
+
+        @Override
+        public OnStateChangeListener getOnStateChangeListener() {
+            return mHolder.getOnStateChangeListener();
+        }
+    }
+}
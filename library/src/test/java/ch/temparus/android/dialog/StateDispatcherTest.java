@@ -0,0 +1,131 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import ch.temparus.android.dialog.listeners.OnSlideListener;
+import ch.temparus.android.dialog.listeners.OnStateChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class StateDispatcherTest {
+
+    private final List<Dialog.State> mDelivered = new ArrayList<>();
+    private final List<Float> mSlideOffsets = new ArrayList<>();
+    private Activity mActivity;
+    private StateDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).create().get();
+        mDispatcher = new StateDispatcher(new DialogLayout(null, new Dialog.Builder(mActivity)));
+        mDispatcher.setListener(new OnStateChangeListener() {
+            @Override
+            public void onStateChanged(Dialog dialog, Dialog.State state) {
+                mDelivered.add(state);
+            }
+        });
+    }
+
+    @Test
+    public void transitionsOfOneFrameAreCoalesced() {
+        mDispatcher.dispatch(null, Dialog.State.COLLAPSED);
+        mDispatcher.dispatch(null, Dialog.State.DRAGGING);
+        mDispatcher.dispatch(null, Dialog.State.SETTLING);
+        mDispatcher.dispatch(null, Dialog.State.EXPANDED);
+        mDispatcher.flush();
+
+        assertEquals(1, mDelivered.size());
+        assertEquals(Dialog.State.EXPANDED, mDelivered.get(0));
+        assertNull(mDispatcher.getPreviousStableState());
+    }
+
+    @Test
+    public void unchangedFinalStateIsNotDelivered() {
+        mDispatcher.dispatch(null, Dialog.State.COLLAPSED);
+        mDispatcher.flush();
+        mDispatcher.dispatch(null, Dialog.State.DRAGGING);
+        mDispatcher.dispatch(null, Dialog.State.COLLAPSED);
+        mDispatcher.flush();
+
+        assertEquals(1, mDelivered.size());
+    }
+
+    @Test
+    public void previousStableStateIsTracked() {
+        mDispatcher.dispatch(null, Dialog.State.COLLAPSED);
+        mDispatcher.flush();
+        mDispatcher.dispatch(null, Dialog.State.DRAGGING);
+        mDispatcher.flush();
+        assertNull(mDispatcher.getPreviousStableState());
+
+        mDispatcher.dispatch(null, Dialog.State.EXPANDED);
+        mDispatcher.flush();
+        assertEquals(Dialog.State.COLLAPSED, mDispatcher.getPreviousStableState());
+
+        mDispatcher.reset();
+        mDispatcher.dispatch(null, Dialog.State.SETTLING);
+        mDispatcher.reset();
+        mDispatcher.flush();
+        assertNull(mDispatcher.getPreviousStableState());
+        assertEquals(3, mDelivered.size());
+    }
+
+    @Test
+    public void dialogListenersAreNotifiedOncePerFrame() {
+        Dialog dialog = new Dialog.Builder(mActivity).create();
+        OnStateChangeListener stateListener = new OnStateChangeListener() {
+            @Override
+            public void onStateChanged(Dialog dialog, Dialog.State state) {
+                mDelivered.add(state);
+            }
+        };
+        OnSlideListener slideListener = new OnSlideListener() {
+            @Override
+            public void onSlide(Dialog dialog, float slideOffset) {
+                mSlideOffsets.add(slideOffset);
+            }
+        };
+        dialog.addOnStateChangeListener(stateListener);
+        dialog.addOnStateChangeListener(stateListener);
+        dialog.addOnSlideListener(slideListener);
+        dialog.addOnSlideListener(new OnSlideListener() {
+            @Override
+            public void onSlide(Dialog dialog, float slideOffset) {
+                mSlideOffsets.add(slideOffset);
+            }
+        });
+
+        mDispatcher.dispatch(dialog, Dialog.State.DRAGGING);
+        mDispatcher.dispatchSlide(dialog);
+        mDispatcher.dispatchSlide(dialog);
+        mDispatcher.flush();
+
+        // holder listener and dialog listener, registered once
+        assertEquals(2, mDelivered.size());
+        assertEquals(2, mSlideOffsets.size());
+
+        // unchanged offsets are not delivered again
+        mDispatcher.dispatchSlide(dialog);
+        mDispatcher.flush();
+        assertEquals(2, mSlideOffsets.size());
+
+        dialog.removeOnStateChangeListener(stateListener);
+        mDispatcher.dispatch(dialog, Dialog.State.EXPANDED);
+        mDispatcher.flush();
+        assertEquals(3, mDelivered.size());
+    }
+}
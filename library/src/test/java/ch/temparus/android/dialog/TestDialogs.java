@@ -0,0 +1,76 @@
+package ch.temparus.android.dialog;
+
+import android.app.Activity;
+import android.view.View;
+import ch.temparus.android.dialog.animation.TransitionEngine;
+import org.robolectric.Robolectric;
+
+/**
+ * Fixtures shared by the tests of the dialog
+ *
+ * @author Sandro Lutz
+ */
+final class TestDialogs {
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+
+    /**
+     * Transition engine which ends every transition as soon as it is started
+     */
+    static final TransitionEngine IMMEDIATE_TRANSITION_ENGINE = new TransitionEngine() {
+        @Override
+        public void start(View target, int resId, Runnable endAction) {
+            endAction.run();
+        }
+
+        @Override
+        public void cancel(View target) {
+        }
+    };
+
+    private TestDialogs() {
+    }
+
+    /**
+     * @return visible activity to show the dialogs in
+     */
+    static Activity startActivity() {
+        return Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+    }
+
+    /**
+     * @return layout of the dialog shown in the activity
+     */
+    static DialogLayout getDialogLayout(Activity activity) {
+        return (DialogLayout) activity.findViewById(R.id.dialog_layout);
+    }
+
+    /**
+     * Show the dialog and lay it out on the screen of the tests
+     *
+     * @return layout of the shown dialog
+     */
+    static DialogLayout show(Activity activity, Dialog dialog) {
+        dialog.show();
+        DialogLayout dialogLayout = getDialogLayout(activity);
+        layout(dialogLayout);
+        return dialogLayout;
+    }
+
+    /**
+     * Measure the view exactly to the size of the screen of the tests
+     */
+    static void measure(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    }
+
+    /**
+     * Measure the view and lay it out to fill the screen of the tests
+     */
+    static void layout(View view) {
+        measure(view);
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
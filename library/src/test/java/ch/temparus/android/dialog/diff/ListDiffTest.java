@@ -0,0 +1,171 @@
+package ch.temparus.android.dialog.diff;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Sandro Lutz
+ */
+public class ListDiffTest {
+
+    private static final String INSERTED = "inserted";
+    private static final String CHANGED = "changed";
+
+    private static final DiffCallback<Item> CALLBACK = new DiffCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(Item oldItem, Item newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return oldItem.content == newItem.content;
+        }
+    };
+
+    @Test
+    public void dispatchesMinimalUpdates() {
+        List<Item> oldList = Arrays.asList(new Item(1, 0), new Item(2, 0), new Item(3, 0), new Item(4, 0));
+        List<Item> newList = Arrays.asList(new Item(4, 0), new Item(1, 0), new Item(3, 1), new Item(5, 0));
+
+        RecordingCallback callback = new RecordingCallback(oldList);
+        ListDiff.calculate(oldList, newList, CALLBACK).dispatchUpdates(callback);
+
+        assertEquals(Arrays.asList("removed 1 1", "changed 1 1", "moved 2 0", "inserted 3 1"), callback.updates);
+        assertApplied(oldList, newList, callback.list);
+    }
+
+    @Test
+    public void unchangedListDispatchesNothing() {
+        List<Item> list = Arrays.asList(new Item(1, 0), new Item(2, 0));
+
+        RecordingCallback callback = new RecordingCallback(list);
+        ListDiff.calculate(list, new ArrayList<>(list), CALLBACK).dispatchUpdates(callback);
+
+        assertEquals(Collections.<String>emptyList(), callback.updates);
+    }
+
+    @Test
+    public void randomListsAreTransformed() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            List<Item> oldList = createRandomList(random);
+            List<Item> newList = createRandomList(random);
+
+            RecordingCallback callback = new RecordingCallback(oldList);
+            ListDiff.calculate(oldList, newList, CALLBACK).dispatchUpdates(callback);
+
+            assertApplied(oldList, newList, callback.list);
+        }
+    }
+
+    @Test
+    public void tooManyDifferencesAreNotDiffed() {
+        List<Item> oldList = new ArrayList<>();
+        List<Item> newList = new ArrayList<>();
+        for (int i = 0; i < ListDiff.MAX_EDIT_DISTANCE; i++) {
+            oldList.add(new Item(i, 0));
+            newList.add(new Item(-i - 1, 0));
+        }
+
+        assertNull(ListDiff.calculate(oldList, newList, CALLBACK));
+    }
+
+    private static List<Item> createRandomList(Random random) {
+        List<Item> list = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids, random);
+        int size = random.nextInt(15);
+        for (int i = 0; i < size; i++) {
+            list.add(new Item(ids.get(i), random.nextInt(2)));
+        }
+        return list;
+    }
+
+    /**
+     * Assert that the dispatched updates transformed the old list into the new list
+     */
+    private static void assertApplied(List<Item> oldList, List<Item> newList, List<Object> list) {
+        assertEquals(newList.size(), list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Item newItem = newList.get(i);
+            Item oldItem = null;
+            for (Item item : oldList) {
+                if (item.id == newItem.id) {
+                    oldItem = item;
+                }
+            }
+
+            if (oldItem == null) {
+                assertEquals(INSERTED, list.get(i));
+            } else if (oldItem.content != newItem.content) {
+                assertEquals(CHANGED, list.get(i));
+            } else {
+                assertEquals(oldItem, list.get(i));
+            }
+        }
+    }
+
+    private static class Item {
+        final int id;
+        final int content;
+
+        Item(int id, int content) {
+            this.id = id;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Applies the updates to a copy of the old list
+     */
+    private static class RecordingCallback implements ListDiff.UpdateCallback {
+        final List<Object> list;
+        final List<String> updates = new ArrayList<>();
+
+        RecordingCallback(List<Item> oldList) {
+            list = new ArrayList<Object>(oldList);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            updates.add("inserted " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.add(position, INSERTED);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            updates.add("removed " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            updates.add("moved " + fromPosition + " " + toPosition);
+            list.add(toPosition, list.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            updates.add("changed " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.set(position + i, CHANGED);
+            }
+        }
+    }
+}
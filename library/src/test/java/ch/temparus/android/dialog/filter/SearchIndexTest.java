@@ -0,0 +1,68 @@
+package ch.temparus.android.dialog.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Sandro Lutz
+ */
+public class SearchIndexTest {
+
+    private static final List<String> ITEMS = Arrays.asList("Anna Smith", "Andrew Jones", "Bob Anderson", "Carla Smithers");
+
+    private static final FilterTextProvider<String> TEXT_PROVIDER = new FilterTextProvider<String>() {
+        @Override
+        public CharSequence getFilterText(String item) {
+            return item;
+        }
+    };
+
+    private static final SearchIndex.Cancellation NOT_CANCELLED = new SearchIndex.Cancellation() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    @Test
+    public void tokenizeSplitsLowerCaseWords() {
+        assertArrayEquals(new String[]{"o", "brien", "3rd", "floor"}, SearchIndex.tokenize("  O'Brien, 3rd floor!"));
+    }
+
+    @Test
+    public void findsItemsByWordPrefix() {
+        SearchIndex index = SearchIndex.build(ITEMS, TEXT_PROVIDER, NOT_CANCELLED);
+
+        assertEquals("{0, 1, 2}", find(index, "an"));
+        assertEquals("{0, 3}", find(index, "smith"));
+        assertEquals("{}", find(index, "ith"));
+    }
+
+    @Test
+    public void cancelledBuildReturnsNull() {
+        SearchIndex.Cancellation cancelled = new SearchIndex.Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+
+        assertEquals(null, SearchIndex.build(ITEMS, TEXT_PROVIDER, cancelled));
+        SearchIndex index = SearchIndex.build(ITEMS, TEXT_PROVIDER, NOT_CANCELLED);
+        assertFalse(index.find("a", new BitSet(), cancelled));
+    }
+
+    private static String find(SearchIndex index, String prefix) {
+        BitSet items = new BitSet();
+        items.set(0, index.getItemCount());
+        index.find(prefix, items, NOT_CANCELLED);
+        return items.toString();
+    }
+}
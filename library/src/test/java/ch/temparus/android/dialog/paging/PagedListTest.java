@@ -0,0 +1,95 @@
+package ch.temparus.android.dialog.paging;
+
+import ch.temparus.android.dialog.BuildConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Sandro Lutz
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PagedListTest {
+
+    private static final int COUNT = 1000;
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_PAGES = 3;
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private CountingDataSource mDataSource;
+    private PagedList<String> mPagedList;
+
+    @Before
+    public void setUp() {
+        mDataSource = new CountingDataSource();
+        mPagedList = new PagedList<>(mDataSource, PAGE_SIZE, MAX_PAGES, DIRECT_EXECUTOR);
+    }
+
+    @Test
+    public void initialLoadCostsOnePage() {
+        assertEquals(COUNT, mPagedList.size());
+        assertEquals(1, mDataSource.mLoadedPages);
+        assertEquals("Item 0", mPagedList.peek(0));
+        assertNull(mPagedList.peek(PAGE_SIZE));
+    }
+
+    @Test
+    public void loadsPagesNearAccessedPosition() {
+        assertNull(mPagedList.peek(5 * PAGE_SIZE + PAGE_SIZE / 2));
+        mPagedList.get(5 * PAGE_SIZE + PAGE_SIZE / 2);
+        assertEquals("Item " + (5 * PAGE_SIZE + PAGE_SIZE / 2), mPagedList.peek(5 * PAGE_SIZE + PAGE_SIZE / 2));
+        // prefetches the following page
+        assertNotNull(mPagedList.peek(6 * PAGE_SIZE));
+        assertEquals(3, mDataSource.mLoadedPages);
+    }
+
+    @Test
+    public void dropsPagesOutsideOfRange() {
+        mPagedList.get(50 * PAGE_SIZE);
+        assertNull(mPagedList.peek(0));
+        assertNotNull(mPagedList.peek(50 * PAGE_SIZE));
+
+        // dropped pages are loaded again
+        int loadedPages = mDataSource.mLoadedPages;
+        mPagedList.get(0);
+        assertEquals("Item 0", mPagedList.peek(0));
+        assertEquals(loadedPages + 1, mDataSource.mLoadedPages);
+    }
+
+    private static class CountingDataSource implements PagingDataSource<String> {
+
+        private int mLoadedPages;
+
+        @Override
+        public int loadCount() {
+            return COUNT;
+        }
+
+        @Override
+        public List<String> loadPage(int offset, int size) {
+            mLoadedPages++;
+            List<String> items = new ArrayList<>(size);
+            for (int i = offset; i < Math.min(COUNT, offset + size); i++) {
+                items.add("Item " + i);
+            }
+            return items;
+        }
+    }
+}
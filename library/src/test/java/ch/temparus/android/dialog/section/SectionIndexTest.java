@@ -0,0 +1,125 @@
+package ch.temparus.android.dialog.section;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Sandro Lutz
+ */
+public class SectionIndexTest {
+
+    private final List<String> mItems = new ArrayList<>();
+    private final SectionIndex mIndex = new SectionIndex(new SectionProvider() {
+        @Override
+        public Object getSection(int position) {
+            return mItems.get(position).substring(0, 1);
+        }
+    });
+
+    @Test
+    public void buildsSections() {
+        mItems.addAll(Arrays.asList("Anna", "Andrew", "Bob", "Carla", "Chris", "Colin"));
+        mIndex.rebuild(mItems.size());
+
+        assertArrayEquals(new Object[]{"A", "B", "C"}, mIndex.getSections());
+        assertEquals(3, mIndex.getPositionForSection(2));
+        assertEquals(1, mIndex.getSectionForPosition(2));
+        assertEquals(2, mIndex.getSectionForPosition(5));
+    }
+
+    @Test
+    public void mergesSectionsOnRemoval() {
+        mItems.addAll(Arrays.asList("Anna", "Bob", "Andrew"));
+        mIndex.rebuild(mItems.size());
+        assertEquals(3, mIndex.getSectionCount());
+
+        mItems.remove(1);
+        mIndex.update(1, 1, 0);
+
+        assertArrayEquals(new Object[]{"A"}, mIndex.getSections());
+    }
+
+    @Test
+    public void ignoresFooterInsertedAfterLastItem() {
+        mItems.addAll(Arrays.asList("Anna", "Bob"));
+        mIndex.rebuild(mItems.size());
+
+        // one header item, the footer item is inserted at the adapter position following the last item
+        mIndex.updateAdapterRange(1, mItems.size(), 3, 0, 1);
+
+        assertEquals(2, mIndex.getItemCount());
+        assertArrayEquals(new Object[]{"A", "B"}, mIndex.getSections());
+
+        // an item appended at the same adapter position is indexed
+        mItems.add("Carla");
+        mIndex.updateAdapterRange(1, mItems.size(), 3, 0, 1);
+
+        assertEquals(3, mIndex.getItemCount());
+        assertArrayEquals(new Object[]{"A", "B", "C"}, mIndex.getSections());
+    }
+
+    @Test
+    public void ignoresHeaderAndFooterChanges() {
+        mItems.addAll(Arrays.asList("Anna", "Bob", "Carla"));
+        mIndex.rebuild(mItems.size());
+
+        mIndex.updateAdapterRange(1, mItems.size(), 0, 0, 1); // header inserted
+        mIndex.updateAdapterRange(1, mItems.size(), 4, 1, 1); // footer changed
+        mIndex.updateAdapterRange(1, mItems.size(), 4, 1, 0); // footer removed
+        mIndex.updateAdapterRange(0, mItems.size(), 0, 1, 0); // header removed
+
+        assertEquals(3, mIndex.getItemCount());
+        assertArrayEquals(new Object[]{"A", "B", "C"}, mIndex.getSections());
+        assertEquals(2, mIndex.getPositionForSection(2));
+    }
+
+    @Test
+    public void clampsRangesAcrossTheFooter() {
+        mItems.addAll(Arrays.asList("Anna", "Bob", "Carla"));
+        mIndex.rebuild(mItems.size());
+
+        // the last item and the footer item are removed with one notification
+        mItems.remove(2);
+        mIndex.updateAdapterRange(1, mItems.size(), 3, 2, 0);
+
+        assertEquals(2, mIndex.getItemCount());
+        assertArrayEquals(new Object[]{"A", "B"}, mIndex.getSections());
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuild() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int position = random.nextInt(mItems.size() + 1);
+            int removedCount = random.nextInt(Math.min(3, mItems.size() - position) + 1);
+            int insertedCount = random.nextInt(4);
+            for (int j = 0; j < removedCount; j++) {
+                mItems.remove(position);
+            }
+            for (int j = 0; j < insertedCount; j++) {
+                mItems.add(position, String.valueOf((char) ('A' + random.nextInt(3))));
+            }
+            mIndex.update(position, removedCount, insertedCount);
+
+            SectionIndex expected = new SectionIndex(new SectionProvider() {
+                @Override
+                public Object getSection(int position) {
+                    return mItems.get(position).substring(0, 1);
+                }
+            });
+            expected.rebuild(mItems.size());
+            assertArrayEquals(expected.getSections(), mIndex.getSections());
+            assertEquals(mItems.size(), mIndex.getItemCount());
+            for (int section = 0; section < expected.getSectionCount(); section++) {
+                assertEquals(expected.getPositionForSection(section), mIndex.getPositionForSection(section));
+            }
+        }
+    }
+}